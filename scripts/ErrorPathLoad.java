@@ -0,0 +1,66 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator with no dependencies beyond the JDK, so the benchmark runs
+ * wherever the project builds. Each worker sends one request at a time for the given duration.
+ *
+ *   java scripts/ErrorPathLoad.java <url> <seconds> <concurrency> [json-body]
+ *
+ * With a body the requests are JSON POSTs, otherwise GETs. Prints requests/s, the status seen and
+ * the number of requests that failed at the transport level.
+ */
+public class ErrorPathLoad {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[1]));
+        int concurrency = Integer.parseInt(args[2]);
+        String body = args.length > 3 ? args[3] : null;
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = body == null
+                ? HttpRequest.newBuilder(uri).GET().build()
+                : HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        int[] lastStatus = new int[1];
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            running.add(workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        lastStatus[0] = response.statusCode();
+                        completed.increment();
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : running) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        workers.shutdown();
+        System.out.printf("%.0f req/s (status %d, %d transport errors)%n", completed.sum() / seconds, lastStatus[0], failed.sum());
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Cost of constructing the not-found exception with and without a stack trace, measured at a
+ * stack depth typical of a WebFlux handler. Plain JDK, no JMH: run it with
+ *
+ *   java scripts/ExceptionCostBench.java [depth] [operations]
+ *
+ * Five warm-up rounds are followed by five measured rounds; the mean per operation is printed.
+ */
+public class ExceptionCostBench {
+
+    static class FullStack extends RuntimeException {
+        FullStack(String message) {
+            super(message);
+        }
+    }
+
+    static class Stackless extends RuntimeException {
+        Stackless(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    static volatile Object sink;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        for (int round = 0; round < 5; round++) {
+            run(depth, false, operations);
+            run(depth, true, operations);
+        }
+        long full = 0;
+        long stackless = 0;
+        for (int round = 0; round < 5; round++) {
+            full += run(depth, false, operations);
+            stackless += run(depth, true, operations);
+        }
+        System.out.printf("full stack: %.0f ns/op, stackless: %.0f ns/op (depth %d)%n",
+                full / 5.0 / operations, stackless / 5.0 / operations, depth);
+    }
+
+    private static long run(int depth, boolean stackless, int operations) {
+        if (depth > 0) {
+            return run(depth - 1, stackless, operations);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            String message = "User not found with id: " + i;
+            sink = stackless ? new Stackless(message) : new FullStack(message);
+        }
+        return System.nanoTime() - started;
+    }
+}
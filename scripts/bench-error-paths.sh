@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Throughput of the 404 (GET /users/{missing}) and 409 (duplicate POST /users) paths, before and after
+# a change. Each ref is built in its own git worktree, started with the dev profile and loaded with
+# scripts/ErrorPathLoad.java, a JDK-only closed-loop load generator.
+#
+#   scripts/bench-error-paths.sh [before-ref] [after-ref]
+#
+# Defaults compare the commit before the cheap error path change with HEAD. Tunables (env):
+#   DURATION=30 CONCURRENCY=64 PORT=18080 WARMUP=10 (seconds)
+# Requires: git, a JDK 17, network access for Maven, curl.
+set -euo pipefail
+
+BEFORE_REF=${1:-$(git log --format=%H --grep='^\[user-030\] Make the 404/409 error path cheap' -n 1)^}
+AFTER_REF=${2:-HEAD}
+DURATION=${DURATION:-30}
+CONCURRENCY=${CONCURRENCY:-64}
+PORT=${PORT:-18080}
+WARMUP=${WARMUP:-10}
+ROOT=$(git rev-parse --show-toplevel)
+WORK=$(mktemp -d)
+BODY='{"name":"Bench","username":"bench","email":"bench-conflict@example.com"}'
+
+LOAD="java $ROOT/scripts/ErrorPathLoad.java"
+
+cleanup() {
+    [[ -n "${APP_PID:-}" ]] && kill "$APP_PID" 2>/dev/null || true
+    git -C "$ROOT" worktree remove --force "$WORK/before" 2>/dev/null || true
+    git -C "$ROOT" worktree remove --force "$WORK/after" 2>/dev/null || true
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+bench() {
+    local label=$1 ref=$2 dir="$WORK/$1"
+    git -C "$ROOT" worktree add --detach "$dir" "$ref" >/dev/null
+    (cd "$dir" && ./mvnw -q -B -DskipTests package)
+    java -jar "$dir"/target/test-bbl-*.jar --server.port="$PORT" --logging.level.root=WARN >"$WORK/$label.log" 2>&1 &
+    APP_PID=$!
+    for _ in $(seq 1 60); do
+        curl -fs "http://localhost:$PORT/actuator/health" >/dev/null && break
+        sleep 1
+    done
+
+    # the conflicting email must exist before the 409 run
+    curl -fs -o /dev/null -H 'Content-Type: application/json' -d "$BODY" "http://localhost:$PORT/users" || true
+
+    local missing="http://localhost:$PORT/users/999999999" create="http://localhost:$PORT/users"
+    $LOAD "$missing" "$WARMUP" "$CONCURRENCY" >/dev/null
+    $LOAD "$create" "$WARMUP" "$CONCURRENCY" "$BODY" >/dev/null
+    echo "$label $(git -C "$ROOT" rev-parse --short "$ref")"
+    echo "  GET /users/{missing}:  $($LOAD "$missing" "$DURATION" "$CONCURRENCY")"
+    echo "  POST /users duplicate: $($LOAD "$create" "$DURATION" "$CONCURRENCY" "$BODY")"
+
+    kill "$APP_PID"
+    wait "$APP_PID" 2>/dev/null || true
+    APP_PID=
+}
+
+bench before "$BEFORE_REF"
+bench after "$AFTER_REF"
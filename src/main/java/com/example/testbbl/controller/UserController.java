@@ -3,14 +3,20 @@ package com.example.testbbl.controller;
 import com.example.testbbl.dto.ApiResponse;
 import com.example.testbbl.dto.request.CreateUserRequest;
 import com.example.testbbl.dto.request.UpdateUserRequest;
+import com.example.testbbl.dto.request.UserLookupRequest;
+import com.example.testbbl.dto.response.UserLookupEntry;
+import com.example.testbbl.dto.response.UserLookupResponse;
 import com.example.testbbl.dto.response.UserResponse;
 import com.example.testbbl.service.UserService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -29,6 +35,28 @@ class UserController {
                 .map(result -> ApiResponse.success(result.getData(), result.getPagination()));
     }
 
+    @GetMapping(value = "/users", params = "ids")
+    public Mono<ApiResponse<UserLookupResponse>> getUsersByIds(@RequestParam @Size(max = 5000) List<Long> ids) {
+        return userService.getUsersByIds(ids)
+                .map(ApiResponse::success);
+    }
+
+    @GetMapping(value = "/users", params = "ids", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserLookupEntry> streamUsersByIds(@RequestParam @Size(max = 5000) List<Long> ids) {
+        return userService.streamUsersByIds(ids);
+    }
+
+    @PostMapping("/users/lookup")
+    public Mono<ApiResponse<UserLookupResponse>> lookupUsers(@Valid @RequestBody UserLookupRequest request) {
+        return userService.getUsersByIds(request.getIds())
+                .map(ApiResponse::success);
+    }
+
+    @PostMapping(value = "/users/lookup", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserLookupEntry> streamLookupUsers(@Valid @RequestBody UserLookupRequest request) {
+        return userService.streamUsersByIds(request.getIds());
+    }
+
     @GetMapping("/users/{id}")
     public Mono<ApiResponse<UserResponse>> getUserById(@PathVariable Long id) {
         return userService.getUserById(id)
@@ -0,0 +1,37 @@
+package com.example.testbbl.controller;
+
+import com.example.testbbl.dto.ApiResponse;
+import com.example.testbbl.dto.response.UserImportResponse;
+import com.example.testbbl.importer.UserImportFormat;
+import com.example.testbbl.importer.UserImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+class UserImportController {
+
+    private final UserImportService userImportService;
+
+    @PostMapping(value = "/users/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ApiResponse<UserImportResponse>> importUsers(@RequestPart("file") FilePart file,
+                                                             @RequestParam(required = false) String format) {
+        UserImportFormat importFormat;
+        try {
+            importFormat = UserImportFormat.resolve(format, file.filename());
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException(e.getMessage());
+        }
+        return userImportService.importContent(file.content(), importFormat)
+                .map(result -> ApiResponse.success(result, "Import completed"));
+    }
+}
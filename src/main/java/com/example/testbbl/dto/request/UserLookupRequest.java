@@ -0,0 +1,20 @@
+package com.example.testbbl.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserLookupRequest {
+
+    @NotEmpty(message = "Ids are required")
+    @Size(max = 5000, message = "At most 5000 ids can be looked up at once")
+    private List<@NotNull(message = "Ids must not be null") Long> ids;
+}
@@ -0,0 +1,4 @@
+package com.example.testbbl.dto.response;
+
+public record ImportRejection(long line, String reason) {
+}
@@ -0,0 +1,22 @@
+package com.example.testbbl.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResponse {
+    private long rows;
+    private long accepted;
+    private long rejected;
+    private long inserted;
+    private long duplicates;
+    private long durationMillis;
+    private List<ImportRejection> rejections;
+}
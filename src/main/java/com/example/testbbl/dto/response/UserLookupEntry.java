@@ -0,0 +1,18 @@
+package com.example.testbbl.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of a streamed lookup: the requested id and the user, or {@code found: false}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserLookupEntry(Long id, boolean found, UserResponse user) {
+
+    public static UserLookupEntry found(UserResponse user) {
+        return new UserLookupEntry(user.getId(), true, user);
+    }
+
+    public static UserLookupEntry missing(Long id) {
+        return new UserLookupEntry(id, false, null);
+    }
+}
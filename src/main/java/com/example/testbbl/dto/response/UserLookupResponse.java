@@ -0,0 +1,17 @@
+package com.example.testbbl.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserLookupResponse {
+    private List<UserResponse> users;
+    private List<Long> missingIds;
+}
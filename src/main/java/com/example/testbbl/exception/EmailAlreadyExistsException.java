@@ -1,7 +1,42 @@
 package com.example.testbbl.exception;
 
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Thrown when an email is already taken. Stackless for the same reason as {@link UserNotFoundException}.
+ */
 public class EmailAlreadyExistsException extends RuntimeException {
+
+    /**
+     * Prefix shared by every unique constraint over emails; drivers include the constraint name in
+     * the violation message.
+     */
+    public static final String EMAIL_CONSTRAINT_PREFIX = "ux_users_email";
+
     public EmailAlreadyExistsException(String message) {
-        super(message);
+        super(message, null, false, false);
+    }
+
+    public static EmailAlreadyExistsException forEmail(String email) {
+        return new EmailAlreadyExistsException("Email already exists: " + email);
+    }
+
+    /**
+     * Whether the failure is a violated email uniqueness constraint. Other integrity violations,
+     * e.g. a primary key collision, are not email conflicts.
+     */
+    public static boolean isEmailConstraintViolation(Throwable error) {
+        if (!(error instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase(Locale.ROOT).contains(EMAIL_CONSTRAINT_PREFIX)) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
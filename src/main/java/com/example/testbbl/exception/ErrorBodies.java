@@ -0,0 +1,80 @@
+package com.example.testbbl.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Writes the {@code ApiResponse} error envelope ({@code timestamp}, {@code status}, {@code message})
+ * straight to bytes for the high-volume 404/409 paths. The JSON around the two variable parts is
+ * encoded once per status, so an error costs one small array copy instead of a Jackson pass.
+ */
+final class ErrorBodies {
+
+    private static final byte[] OPEN = "{\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CLOSE = "\"}".getBytes(StandardCharsets.UTF_8);
+    // shared by every error response, so it must not be writable
+    private static final HttpHeaders JSON_HEADERS = jsonHeaders();
+
+    private final HttpStatus status;
+    private final byte[] statusAndMessagePrefix;
+
+    ErrorBodies(HttpStatus status) {
+        this.status = status;
+        this.statusAndMessagePrefix = ("\",\"status\":" + status.value() + ",\"message\":\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    ResponseEntity<byte[]> render(String message) {
+        byte[] timestamp = Instant.now().toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] text = escape(message == null ? "" : message).getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[OPEN.length + timestamp.length + statusAndMessagePrefix.length + text.length + CLOSE.length];
+        int offset = 0;
+        offset = append(body, offset, OPEN);
+        offset = append(body, offset, timestamp);
+        offset = append(body, offset, statusAndMessagePrefix);
+        offset = append(body, offset, text);
+        append(body, offset, CLOSE);
+        return new ResponseEntity<>(body, JSON_HEADERS, status);
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private static int append(byte[] target, int offset, byte[] part) {
+        System.arraycopy(part, 0, target, offset, part.length);
+        return offset + part.length;
+    }
+
+    static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.testbbl.exception;
+
+public record FieldViolation(String field, String rejectedValue, String message) {
+}
@@ -5,51 +5,49 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.ServerWebInputException;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final ErrorBodies NOT_FOUND = new ErrorBodies(HttpStatus.NOT_FOUND);
+    private static final ErrorBodies CONFLICT = new ErrorBodies(HttpStatus.CONFLICT);
+
     @ExceptionHandler(UserNotFoundException.class)
-    public ResponseEntity<ApiResponse<Void>> handleUserNotFoundException(UserNotFoundException ex, ServerWebExchange exchange) {
-        HttpStatus status = HttpStatus.NOT_FOUND;
-        ApiResponse<Void> response = ApiResponse.error(status.value(), ex.getMessage());
-        return new ResponseEntity<>(response, status);
+    public ResponseEntity<byte[]> handleUserNotFoundException(UserNotFoundException ex, ServerWebExchange exchange) {
+        return NOT_FOUND.render(ex.getMessage());
     }
 
     @ExceptionHandler(EmailAlreadyExistsException.class)
-    public ResponseEntity<ApiResponse<Void>> handleEmailExistsException(EmailAlreadyExistsException ex, ServerWebExchange exchange) {
-        HttpStatus status = HttpStatus.CONFLICT;
-        ApiResponse<Void> response = ApiResponse.error(status.value(), ex.getMessage());
-        return new ResponseEntity<>(response, status);
+    public ResponseEntity<byte[]> handleEmailExistsException(EmailAlreadyExistsException ex, ServerWebExchange exchange) {
+        return CONFLICT.render(ex.getMessage());
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Void>> handleValidationException(MethodArgumentNotValidException ex, ServerWebExchange exchange) {
-        HttpStatus status = HttpStatus.BAD_REQUEST;
-        List<Map<String, String>> fieldErrors = ex.getBindingResult()
-                .getFieldErrors()
-                .stream()
-                .map(this::toFieldError)
-                .collect(Collectors.toList());
-        ApiResponse<Void> response = ApiResponse.error(status.value(), "Validation failure", fieldErrors);
-        return new ResponseEntity<>(response, status);
+        return validationFailure(ex.getBindingResult());
+    }
+
+    // WebFlux reports @Valid request body failures as this ServerWebInputException subtype
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiResponse<Void>> handleWebExchangeBindException(WebExchangeBindException ex, ServerWebExchange exchange) {
+        return validationFailure(ex.getBindingResult());
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ApiResponse<Void>> handleConstraintViolation(ConstraintViolationException ex, ServerWebExchange exchange) {
         HttpStatus status = HttpStatus.BAD_REQUEST;
-        List<Map<String, String>> violations = ex.getConstraintViolations().stream()
+        List<FieldViolation> violations = ex.getConstraintViolations().stream()
                 .map(this::toViolation)
                 .collect(Collectors.toList());
         ApiResponse<Void> response = ApiResponse.error(status.value(), "Constraint violation", violations);
@@ -70,19 +68,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, status);
     }
 
-    private Map<String, String> toFieldError(FieldError error) {
-        Map<String, String> map = new HashMap<>();
-        map.put("field", error.getField());
-        map.put("rejectedValue", String.valueOf(error.getRejectedValue()));
-        map.put("message", error.getDefaultMessage());
-        return map;
+    private ResponseEntity<ApiResponse<Void>> validationFailure(BindingResult bindingResult) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        List<FieldViolation> fieldErrors = bindingResult
+                .getFieldErrors()
+                .stream()
+                .map(this::toFieldError)
+                .collect(Collectors.toList());
+        ApiResponse<Void> response = ApiResponse.error(status.value(), "Validation failure", fieldErrors);
+        return new ResponseEntity<>(response, status);
+    }
+
+    private FieldViolation toFieldError(FieldError error) {
+        return new FieldViolation(error.getField(), String.valueOf(error.getRejectedValue()), error.getDefaultMessage());
     }
 
-    private Map<String, String> toViolation(ConstraintViolation<?> violation) {
-        Map<String, String> map = new HashMap<>();
-        map.put("field", violation.getPropertyPath().toString());
-        map.put("rejectedValue", String.valueOf(violation.getInvalidValue()));
-        map.put("message", violation.getMessage());
-        return map;
+    private FieldViolation toViolation(ConstraintViolation<?> violation) {
+        return new FieldViolation(violation.getPropertyPath().toString(), String.valueOf(violation.getInvalidValue()), violation.getMessage());
     }
 }
\ No newline at end of file
@@ -1,7 +1,15 @@
 package com.example.testbbl.exception;
 
+/**
+ * Thrown for unknown user ids. Stackless: it is a routine outcome signalled through
+ * {@code Mono.error}, so filling in a stack trace would be pure overhead.
+ */
 public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
-}
\ No newline at end of file
+
+    public static UserNotFoundException forId(Long id) {
+        return new UserNotFoundException("User not found with id: " + id);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.testbbl.id;
+
+public interface IdGenerator {
+
+    /**
+     * Returns the id for a new row, or {@code null} to leave the assignment to the database.
+     */
+    Long nextId();
+}
@@ -0,0 +1,24 @@
+package com.example.testbbl.id;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(IdGeneratorProperties.class)
+public class IdGeneratorConfiguration {
+
+    @Bean
+    public IdGenerator idGenerator(IdGeneratorProperties properties) {
+        return switch (properties.getStrategy()) {
+            case SNOWFLAKE -> {
+                if (properties.getNodeId() == null) {
+                    throw new IllegalStateException("app.id-generator.node-id must be set for the snowflake strategy;"
+                            + " instances sharing a node id generate colliding ids");
+                }
+                yield new SnowflakeIdGenerator(properties.getNodeId(), properties.getEpoch());
+            }
+            case DATABASE -> new DatabaseIdGenerator();
+        };
+    }
+}
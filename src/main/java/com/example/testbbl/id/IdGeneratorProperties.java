@@ -0,0 +1,21 @@
+package com.example.testbbl.id;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Instant;
+
+@Data
+@ConfigurationProperties(prefix = "app.id-generator")
+public class IdGeneratorProperties {
+
+    public enum Strategy { SNOWFLAKE, DATABASE }
+
+    private Strategy strategy = Strategy.DATABASE;
+    /**
+     * Unique per running instance; required for {@link Strategy#SNOWFLAKE}. There is deliberately no
+     * default, so a second instance cannot silently share node 0 with the first.
+     */
+    private Long nodeId;
+    private Instant epoch = Instant.parse("2024-01-01T00:00:00Z");
+}
@@ -0,0 +1,63 @@
+package com.example.testbbl.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time ordered ids of at most 53 bits, so they survive JSON parsing as an IEEE double in
+ * JavaScript clients: 41 bits of milliseconds since {@code epoch}, 5 bits of node id and a 7 bit
+ * per-millisecond sequence.
+ * <p>
+ * The timestamp and sequence live in a single {@link AtomicLong} and are advanced with a CAS, so
+ * callers never block. When a millisecond's sequence is exhausted, or the wall clock moves
+ * backwards, the generator keeps counting into the following milliseconds instead of waiting;
+ * ids stay unique and increasing per node and the logical clock catches up once load drops.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    static final int TIMESTAMP_BITS = 41;
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long nodeBits;
+    private final long epochMillis;
+    private final Clock clock;
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId, Instant epoch) {
+        this(nodeId, epoch, Clock.systemUTC());
+    }
+
+    SnowflakeIdGenerator(long nodeId, Instant epoch, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + " but was " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.epochMillis = epoch.toEpochMilli();
+        this.clock = clock;
+    }
+
+    @Override
+    public Long nextId() {
+        return next();
+    }
+
+    public long next() {
+        long now = (clock.millis() - epochMillis) << SEQUENCE_BITS;
+        while (true) {
+            long last = lastTimeAndSequence.get();
+            long candidate = now > last ? now : last + 1;
+            if (lastTimeAndSequence.compareAndSet(last, candidate)) {
+                long timestamp = candidate >>> SEQUENCE_BITS;
+                long sequence = candidate & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+            }
+        }
+    }
+
+    public static long nodeOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
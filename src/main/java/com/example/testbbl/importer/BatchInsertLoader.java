@@ -0,0 +1,54 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserBatchStatements;
+import com.example.testbbl.util.EmailNormalizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fallback for databases without {@code COPY} (H2): each batch drops emails that already exist,
+ * checked with one query, and is written with one batched insert. Batches run one after another,
+ * so duplicates across batches are caught by the next batch's check.
+ */
+@RequiredArgsConstructor
+class BatchInsertLoader implements UserBulkLoader {
+
+    private static final String EXISTING_EMAILS = "SELECT LOWER(email) AS email FROM users WHERE LOWER(email) IN (:emails)";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Long> load(Flux<List<User>> batches) {
+        return batches.concatMap(this::insertNew, 1)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> insertNew(List<User> batch) {
+        Map<String, User> byEmail = new LinkedHashMap<>();
+        batch.forEach(user -> byEmail.putIfAbsent(EmailNormalizer.normalize(user.getEmail()), user));
+        return databaseClient.sql(EXISTING_EMAILS)
+                .bind("emails", new ArrayList<>(byEmail.keySet()))
+                .map(row -> row.get("email", String.class))
+                .all()
+                .collect(Collectors.toSet())
+                .flatMap(existing -> insert(byEmail, existing));
+    }
+
+    private Mono<Long> insert(Map<String, User> byEmail, Set<String> existing) {
+        List<User> fresh = byEmail.entrySet().stream()
+                .filter(entry -> !existing.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        return UserBatchStatements.insertAll(databaseClient, fresh).count();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.dto.request.CreateUserRequest;
+
+record ParsedRecord(long line, CreateUserRequest request, String error) {
+
+    static ParsedRecord valid(long line, CreateUserRequest request) {
+        return new ParsedRecord(line, request, null);
+    }
+
+    static ParsedRecord invalid(long line, String error) {
+        return new ParsedRecord(line, null, error);
+    }
+}
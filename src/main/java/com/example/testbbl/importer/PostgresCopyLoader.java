@@ -0,0 +1,109 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.model.User;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Wrapped;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams the rows into a session-local staging table with {@code COPY ... FROM STDIN} and merges
+ * them into {@code users} with set-based statements that drop case-insensitive duplicates. Rows
+ * staged without an id get one from the identity column.
+ */
+@RequiredArgsConstructor
+class PostgresCopyLoader implements UserBulkLoader {
+
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE IF NOT EXISTS users_import"
+            + " (id BIGINT, name VARCHAR(255), username VARCHAR(255), email VARCHAR(255), phone VARCHAR(255), website VARCHAR(255))";
+    private static final String CLEAR_STAGING = "TRUNCATE users_import";
+    private static final String COPY_STAGING = "COPY users_import (id, name, username, email, phone, website) FROM STDIN (FORMAT csv)";
+    private static final String MERGE = """
+            INSERT INTO users (id, name, username, email, phone, website)
+            SELECT DISTINCT ON (lower(s.email)) s.id, s.name, s.username, s.email, s.phone, s.website
+            FROM users_import s
+            WHERE s.id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM users u WHERE lower(u.email) = lower(s.email))
+            ORDER BY lower(s.email), s.id
+            ON CONFLICT DO NOTHING""";
+    private static final String MERGE_GENERATED_IDS = """
+            INSERT INTO users (name, username, email, phone, website)
+            SELECT DISTINCT ON (lower(s.email)) s.name, s.username, s.email, s.phone, s.website
+            FROM users_import s
+            WHERE s.id IS NULL AND NOT EXISTS (SELECT 1 FROM users u WHERE lower(u.email) = lower(s.email))
+            ORDER BY lower(s.email)
+            ON CONFLICT DO NOTHING""";
+    private static final String DROP_STAGING = "DROP TABLE IF EXISTS users_import";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Long> load(Flux<List<User>> batches) {
+        return databaseClient.inConnection(connection -> {
+            PostgresqlConnection postgres = unwrap(connection);
+            return execute(connection, CREATE_STAGING)
+                    .then(execute(connection, CLEAR_STAGING))
+                    .then(postgres.copyIn(COPY_STAGING, batches.map(PostgresCopyLoader::toCsv)))
+                    .then(execute(connection, MERGE))
+                    .flatMap(withIds -> execute(connection, MERGE_GENERATED_IDS).map(generated -> withIds + generated))
+                    .flatMap(inserted -> execute(connection, DROP_STAGING).thenReturn(inserted));
+        });
+    }
+
+    private static Mono<Long> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    private static PostgresqlConnection unwrap(Connection connection) {
+        Object target = connection;
+        while (!(target instanceof PostgresqlConnection) && target instanceof Wrapped<?> wrapped) {
+            target = wrapped.unwrap();
+        }
+        if (target instanceof PostgresqlConnection postgres) {
+            return postgres;
+        }
+        throw new IllegalStateException("COPY requires an r2dbc-postgresql connection but got " + connection.getClass().getName());
+    }
+
+    static ByteBuf toCsv(List<User> batch) {
+        StringBuilder csv = new StringBuilder(batch.size() * 96);
+        for (User user : batch) {
+            if (user.getId() != null) {
+                csv.append(user.getId());
+            }
+            csv.append(',');
+            appendField(csv, user.getName()).append(',');
+            appendField(csv, user.getUsername()).append(',');
+            appendField(csv, user.getEmail()).append(',');
+            appendField(csv, user.getPhone()).append(',');
+            appendField(csv, user.getWebsite()).append('\n');
+        }
+        return Unpooled.wrappedBuffer(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // unquoted empty means NULL in COPY csv; every value is quoted so empty strings survive
+    private static StringBuilder appendField(StringBuilder csv, String value) {
+        if (value == null) {
+            return csv;
+        }
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        return csv.append('"');
+    }
+}
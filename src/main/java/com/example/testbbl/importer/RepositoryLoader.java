@@ -0,0 +1,45 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserRepository;
+import com.example.testbbl.util.EmailNormalizer;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads through {@link UserRepository#insertAll}, for repositories that do not keep users in the
+ * primary database (sharding). Each batch drops emails repeated within it, then those the
+ * repository already knows, and inserts the rest; batches run one after another, so duplicates
+ * across batches are caught by the next batch's check. An email taken concurrently between the
+ * check and the insert fails the import.
+ */
+@RequiredArgsConstructor
+class RepositoryLoader implements UserBulkLoader {
+
+    private static final int LOOKUP_CONCURRENCY = 16;
+
+    private final UserRepository userRepository;
+
+    @Override
+    public Mono<Long> load(Flux<List<User>> batches) {
+        return batches.concatMap(this::insertNew, 1)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> insertNew(List<User> batch) {
+        Map<String, User> byEmail = new LinkedHashMap<>();
+        batch.forEach(user -> byEmail.putIfAbsent(EmailNormalizer.normalize(user.getEmail()), user));
+        return Flux.fromIterable(byEmail.values())
+                .flatMapSequential(user -> userRepository.existsByEmailIgnoreCase(user.getEmail())
+                        .filter(exists -> !exists)
+                        .map(exists -> user), LOOKUP_CONCURRENCY)
+                .collectList()
+                .flatMapMany(userRepository::insertAll)
+                .count();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+interface UserBulkLoader {
+
+    /**
+     * Loads the validated batches and returns the number of rows inserted into {@code users};
+     * rows whose email (ignoring case) already exists or repeats within the import are skipped.
+     */
+    Mono<Long> load(Flux<List<User>> batches);
+}
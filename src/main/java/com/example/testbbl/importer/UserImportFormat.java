@@ -0,0 +1,28 @@
+package com.example.testbbl.importer;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+public enum UserImportFormat {
+    CSV,
+    NDJSON;
+
+    /**
+     * Uses the explicit format when given, otherwise the file extension ({@code .ndjson}/{@code .jsonl}
+     * for NDJSON, anything else is read as CSV).
+     *
+     * @throws IllegalArgumentException if the explicit format is not one of the constants
+     */
+    public static UserImportFormat resolve(String format, String filename) {
+        if (format != null && !format.isBlank()) {
+            String name = format.trim().toUpperCase(Locale.ROOT);
+            return Arrays.stream(values())
+                    .filter(candidate -> candidate.name().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown import format '" + format.trim()
+                            + "', expected one of " + Arrays.toString(values()).toLowerCase(Locale.ROOT)));
+        }
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+}
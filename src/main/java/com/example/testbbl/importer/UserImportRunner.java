@@ -0,0 +1,40 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.dto.response.UserImportResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Imports a local file at startup, e.g.
+ * {@code java -jar app.jar --app.import.file=/data/users.csv --spring.main.web-application-type=none}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.import", name = "file")
+class UserImportRunner implements ApplicationRunner {
+
+    private final UserImportService userImportService;
+
+    @Value("${app.import.file}")
+    private String file;
+
+    @Value("${app.import.format:}")
+    private String format;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Path path = Path.of(file);
+        UserImportResponse result = userImportService.importFile(path, UserImportFormat.resolve(format, path.getFileName().toString())).block();
+        if (result != null && !result.getRejections().isEmpty()) {
+            result.getRejections().forEach(rejection -> log.warn("Rejected line {}: {}", rejection.line(), rejection.reason()));
+        }
+    }
+}
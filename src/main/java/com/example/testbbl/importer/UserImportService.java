@@ -0,0 +1,156 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.dto.request.CreateUserRequest;
+import com.example.testbbl.dto.response.ImportRejection;
+import com.example.testbbl.dto.response.UserImportResponse;
+import com.example.testbbl.id.IdGenerator;
+import com.example.testbbl.mapper.UserMapper;
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserRepository;
+import com.example.testbbl.service.EmailExistenceFilter;
+import com.example.testbbl.sharding.ShardedUserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of users from CSV or NDJSON. Input is parsed line by line, validated against the
+ * {@link CreateUserRequest} constraints and handed to a {@link UserBulkLoader} in fixed-size
+ * batches, so heap use is bounded by the batch size whatever the file size. With sharding enabled
+ * the rows go through the {@link ShardedUserRepository}, otherwise straight to the primary
+ * {@code spring.r2dbc} database.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final long PROGRESS_INTERVAL = 100_000;
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserMapper userMapper;
+    private final IdGenerator idGenerator;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final UserBulkLoader loader;
+
+    public UserImportService(UserRepository userRepository, DatabaseClient databaseClient,
+                             ConnectionFactory connectionFactory, Validator validator, ObjectMapper objectMapper,
+                             UserMapper userMapper, IdGenerator idGenerator, EmailExistenceFilter emailExistenceFilter) {
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.userMapper = userMapper;
+        this.idGenerator = idGenerator;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.loader = loaderFor(userRepository, databaseClient, connectionFactory);
+    }
+
+    private static UserBulkLoader loaderFor(UserRepository userRepository, DatabaseClient databaseClient,
+                                            ConnectionFactory connectionFactory) {
+        if (userRepository instanceof ShardedUserRepository) {
+            // the primary database holds no users when sharded
+            return new RepositoryLoader(userRepository);
+        }
+        return connectionFactory.getMetadata().getName().contains("PostgreSQL")
+                ? new PostgresCopyLoader(databaseClient)
+                : new BatchInsertLoader(databaseClient);
+    }
+
+    public Mono<UserImportResponse> importFile(Path file, UserImportFormat format) {
+        return importLines(UserImportSources.lines(UserImportSources.mapped(file)), format);
+    }
+
+    public Mono<UserImportResponse> importContent(Flux<DataBuffer> content, UserImportFormat format) {
+        return importLines(UserImportSources.lines(content), format);
+    }
+
+    Mono<UserImportResponse> importLines(Flux<String> lines, UserImportFormat format) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            UserRecordParser parser = new UserRecordParser(format, objectMapper);
+            Progress progress = new Progress();
+            Flux<List<User>> batches = lines.index()
+                    .<ParsedRecord>handle((line, sink) -> {
+                        ParsedRecord parsed = parser.parse(line.getT1() + 1, line.getT2());
+                        if (parsed != null) {
+                            sink.next(parsed);
+                        }
+                    })
+                    .<User>handle((parsed, sink) -> {
+                        User user = toUser(parsed, progress);
+                        if (user != null) {
+                            sink.next(user);
+                        }
+                    })
+                    .buffer(BATCH_SIZE);
+            return loader.load(batches)
+                    .map(inserted -> progress.toResponse(inserted, started))
+                    .doOnNext(result -> log.info("User import finished: {} rows, {} inserted, {} duplicates, {} rejected in {} ms",
+                            result.getRows(), result.getInserted(), result.getDuplicates(), result.getRejected(), result.getDurationMillis()));
+        });
+    }
+
+    private User toUser(ParsedRecord parsed, Progress progress) {
+        long rows = progress.rows.incrementAndGet();
+        if (rows % PROGRESS_INTERVAL == 0) {
+            log.info("User import progress: {} rows read, {} rejected", rows, progress.rejected.get());
+        }
+        if (parsed.error() != null) {
+            progress.reject(parsed.line(), parsed.error());
+            return null;
+        }
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(parsed.request());
+        if (!violations.isEmpty()) {
+            progress.reject(parsed.line(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        User user = userMapper.toEntity(parsed.request());
+        user.setId(idGenerator.nextId()); // null lets the database assign it
+        emailExistenceFilter.add(user.getEmail());
+        progress.accepted.incrementAndGet();
+        return user;
+    }
+
+    private static final class Progress {
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final ConcurrentLinkedQueue<ImportRejection> rejections = new ConcurrentLinkedQueue<>();
+
+        void reject(long line, String reason) {
+            if (rejected.incrementAndGet() <= MAX_REPORTED_REJECTIONS) {
+                rejections.add(new ImportRejection(line, reason));
+            }
+        }
+
+        UserImportResponse toResponse(long inserted, long startedNanos) {
+            return UserImportResponse.builder()
+                    .rows(rows.get())
+                    .accepted(accepted.get())
+                    .rejected(rejected.get())
+                    .inserted(inserted)
+                    .duplicates(accepted.get() - inserted)
+                    .durationMillis((System.nanoTime() - startedNanos) / 1_000_000)
+                    .rejections(List.copyOf(rejections))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.testbbl.importer;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+final class UserImportSources {
+
+    private static final int MAPPED_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final StringDecoder LINE_DECODER = StringDecoder.allMimeTypes(List.of("\n"), true);
+
+    private UserImportSources() {
+    }
+
+    /**
+     * Maps the file in fixed-size read-only chunks, so the page cache backs the data instead of the heap.
+     */
+    static Flux<DataBuffer> mapped(Path file) {
+        return Flux.using(
+                () -> FileChannel.open(file, StandardOpenOption.READ),
+                channel -> {
+                    long size = sizeOf(channel);
+                    int chunks = (int) ((size + MAPPED_CHUNK_SIZE - 1) / MAPPED_CHUNK_SIZE);
+                    return Flux.range(0, chunks).map(chunk -> map(channel, chunk, size));
+                },
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // mapped buffers stay valid after the channel is closed
+                    }
+                });
+    }
+
+    static Flux<String> lines(Flux<DataBuffer> content) {
+        return LINE_DECODER.decode(content, ResolvableType.forClass(String.class), null, Collections.emptyMap());
+    }
+
+    private static long sizeOf(FileChannel channel) {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static DataBuffer map(FileChannel channel, int chunk, long size) {
+        long position = (long) chunk * MAPPED_CHUNK_SIZE;
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_CHUNK_SIZE, size - position));
+            return DefaultDataBufferFactory.sharedInstance.wrap(buffer);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.dto.request.CreateUserRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses one import line at a time. CSV input needs a header row naming the
+ * {@link CreateUserRequest} fields in any order; quoted fields follow RFC 4180 but may not span
+ * lines. Stateful for the CSV header, so use one instance per import.
+ */
+class UserRecordParser {
+
+    private static final List<String> FIELDS = List.of("name", "username", "email", "phone", "website");
+
+    private final UserImportFormat format;
+    private final ObjectMapper objectMapper;
+    private int[] columnOfField;
+
+    UserRecordParser(UserImportFormat format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns {@code null} for blank lines and the CSV header.
+     */
+    ParsedRecord parse(long lineNumber, String line) {
+        String trimmed = stripCarriageReturn(line);
+        if (trimmed.isBlank()) {
+            return null;
+        }
+        return format == UserImportFormat.NDJSON ? parseJson(lineNumber, trimmed) : parseCsv(lineNumber, trimmed);
+    }
+
+    private ParsedRecord parseJson(long lineNumber, String line) {
+        try {
+            return ParsedRecord.valid(lineNumber, objectMapper.readValue(line, CreateUserRequest.class));
+        } catch (JsonProcessingException e) {
+            return ParsedRecord.invalid(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private ParsedRecord parseCsv(long lineNumber, String line) {
+        List<String> values;
+        try {
+            values = splitCsv(line);
+        } catch (IllegalArgumentException e) {
+            return ParsedRecord.invalid(lineNumber, e.getMessage());
+        }
+        if (columnOfField == null) {
+            readHeader(values);
+            return null;
+        }
+        return ParsedRecord.valid(lineNumber, new CreateUserRequest(
+                column(values, 0), column(values, 1), column(values, 2), column(values, 3), column(values, 4)));
+    }
+
+    private void readHeader(List<String> header) {
+        columnOfField = new int[FIELDS.size()];
+        for (int field = 0; field < FIELDS.size(); field++) {
+            columnOfField[field] = -1;
+            for (int column = 0; column < header.size(); column++) {
+                if (FIELDS.get(field).equals(header.get(column).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))) {
+                    columnOfField[field] = column;
+                }
+            }
+        }
+    }
+
+    private String column(List<String> values, int field) {
+        int column = columnOfField[field];
+        if (column < 0 || column >= values.size()) {
+            return null;
+        }
+        String value = values.get(column);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String stripCarriageReturn(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+}
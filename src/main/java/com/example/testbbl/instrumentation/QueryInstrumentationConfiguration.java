@@ -0,0 +1,38 @@
+package com.example.testbbl.instrumentation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes the application's {@link ConnectionFactory} through r2dbc-proxy so every statement,
+ * including the ones Spring Data derives from repository method names, is timed and counted.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.query-metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(QueryMetricsProperties.class)
+public class QueryInstrumentationConfiguration {
+
+    @Bean
+    QueryMetricsListener queryMetricsListener(MeterRegistry meterRegistry, QueryMetricsProperties properties) {
+        return new QueryMetricsListener(meterRegistry, properties);
+    }
+
+    @Bean
+    RequestQueryCountingFilter requestQueryCountingFilter(MeterRegistry meterRegistry, QueryMetricsProperties properties) {
+        return new RequestQueryCountingFilter(meterRegistry, properties);
+    }
+
+    // Boot decorates the connection factory it creates before pooling it, so the pool stays the bean
+    @Bean
+    ConnectionFactoryDecorator queryMetricsConnectionFactoryDecorator(QueryMetricsListener listener) {
+        return connectionFactory -> ProxyConnectionFactory.builder(connectionFactory)
+                .listener(listener)
+                .build();
+    }
+}
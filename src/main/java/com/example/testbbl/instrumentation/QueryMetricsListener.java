@@ -0,0 +1,114 @@
+package com.example.testbbl.instrumentation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import lombok.extern.slf4j.Slf4j;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Records every statement executed through the proxied {@code ConnectionFactory}: a latency timer
+ * and a row count summary per statement shape, a warning for slow statements (SQL only, bound
+ * values are never logged) and the request's {@link RequestQueryCounter} when one is in the context.
+ */
+@Slf4j
+class QueryMetricsListener implements ProxyExecutionListener {
+
+    private static final String ROWS_KEY = QueryMetricsListener.class.getName() + ".rows";
+    private static final Pattern BIND_MARKER = Pattern.compile("\\$\\d+|:\\w+|\\?");
+    private static final Pattern MARKER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String OTHER_SHAPE = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final QueryMetricsProperties properties;
+    private final Set<String> knownShapes = ConcurrentHashMap.newKeySet();
+
+    QueryMetricsListener(MeterRegistry meterRegistry, QueryMetricsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public void beforeQuery(QueryExecutionInfo execInfo) {
+        execInfo.getValueStore().put(ROWS_KEY, new AtomicInteger());
+        RequestQueryCounter counter = requestCounter(execInfo);
+        if (counter != null) {
+            counter.statementExecuted();
+        }
+    }
+
+    @Override
+    public void eachQueryResult(QueryExecutionInfo execInfo) {
+        AtomicInteger rows = execInfo.getValueStore().get(ROWS_KEY, AtomicInteger.class);
+        if (rows != null) {
+            rows.incrementAndGet();
+        }
+        RequestQueryCounter counter = requestCounter(execInfo);
+        if (counter != null) {
+            counter.rowRead();
+        }
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        String sql = execInfo.getQueries().stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        String shape = shapeTag(shapeOf(sql));
+        AtomicInteger rows = execInfo.getValueStore().get(ROWS_KEY, AtomicInteger.class);
+        int rowCount = rows != null ? rows.get() : 0;
+        Duration duration = execInfo.getExecuteDuration();
+
+        Timer.builder("db.query")
+                .description("Execution time per statement shape")
+                .tag("statement", shape)
+                .tag("outcome", execInfo.isSuccess() ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duration);
+        DistributionSummary.builder("db.query.rows")
+                .description("Rows returned per statement shape")
+                .tag("statement", shape)
+                .register(meterRegistry)
+                .record(rowCount);
+
+        if (duration.compareTo(properties.getSlowQueryThreshold()) >= 0) {
+            int boundValues = execInfo.getQueries().stream().mapToInt(query -> query.getBindingsList().size()).sum();
+            log.warn("Slow query took {} ms and returned {} rows ({} bindings redacted): {}",
+                    duration.toMillis(), rowCount, boundValues, sql);
+        }
+    }
+
+    // bounds the tag cardinality: once the limit is reached, unseen shapes share one tag
+    private String shapeTag(String shape) {
+        if (knownShapes.contains(shape)) {
+            return shape;
+        }
+        if (knownShapes.size() < properties.getMaxStatementShapes()) {
+            knownShapes.add(shape);
+            return shape;
+        }
+        return OTHER_SHAPE;
+    }
+
+    // r2dbc-proxy keeps the subscriber's Reactor context in the value store
+    private static RequestQueryCounter requestCounter(QueryExecutionInfo execInfo) {
+        ContextView context = execInfo.getValueStore().get(ContextView.class, ContextView.class);
+        return context != null ? context.getOrDefault(RequestQueryCounter.class, null) : null;
+    }
+
+    static String shapeOf(String sql) {
+        String markers = BIND_MARKER.matcher(sql).replaceAll("?");
+        String lists = MARKER_LIST.matcher(markers).replaceAll("?");
+        return WHITESPACE.matcher(lists).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.testbbl.instrumentation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.query-metrics")
+public class QueryMetricsProperties {
+
+    private boolean enabled = true;
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+    private int maxStatementShapes = 200;
+    private String roundTripHeader = "X-DB-Round-Trips";
+}
@@ -0,0 +1,29 @@
+package com.example.testbbl.instrumentation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Statements sent to the database and rows read back while serving one request. Carried in the
+ * Reactor context under its own class as the key.
+ */
+public final class RequestQueryCounter {
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger rows = new AtomicInteger();
+
+    void statementExecuted() {
+        statements.incrementAndGet();
+    }
+
+    void rowRead() {
+        rows.incrementAndGet();
+    }
+
+    public int statements() {
+        return statements.get();
+    }
+
+    public int rows() {
+        return rows.get();
+    }
+}
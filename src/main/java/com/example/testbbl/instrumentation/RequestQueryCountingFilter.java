@@ -0,0 +1,64 @@
+package com.example.testbbl.instrumentation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives every request a {@link RequestQueryCounter} and reports it as response headers and as
+ * per-route distribution summaries.
+ * <p>
+ * The headers are written when the response is committed. A streamed response (NDJSON) commits
+ * with its first element, so its headers only cover the statements issued up to then. The
+ * summaries are recorded once the exchange has finished and always cover the whole request.
+ */
+class RequestQueryCountingFilter implements WebFilter {
+
+    static final String ROWS_HEADER = "X-DB-Rows";
+    static final String ROUND_TRIPS_METRIC = "http.server.db.round.trips";
+    static final String ROWS_METRIC = "http.server.db.rows";
+
+    private final MeterRegistry meterRegistry;
+    private final String roundTripHeader;
+
+    RequestQueryCountingFilter(MeterRegistry meterRegistry, QueryMetricsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.roundTripHeader = properties.getRoundTripHeader();
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        RequestQueryCounter counter = new RequestQueryCounter();
+        exchange.getResponse().beforeCommit(() -> {
+            exchange.getResponse().getHeaders().set(roundTripHeader, Integer.toString(counter.statements()));
+            exchange.getResponse().getHeaders().set(ROWS_HEADER, Integer.toString(counter.rows()));
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(RequestQueryCounter.class, counter))
+                .doFinally(signal -> {
+                    String route = routeOf(exchange);
+                    summary(ROUND_TRIPS_METRIC, "Database statements per request", route).record(counter.statements());
+                    summary(ROWS_METRIC, "Database rows read per request", route).record(counter.rows());
+                });
+    }
+
+    private DistributionSummary summary(String name, String description, String route) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("uri", route)
+                .register(meterRegistry);
+    }
+
+    // the matched pattern keeps the tag bounded; unmatched requests share one value
+    private static String routeOf(ServerWebExchange exchange) {
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
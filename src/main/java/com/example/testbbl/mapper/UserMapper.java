@@ -21,4 +21,9 @@ public interface UserMapper {
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "id", ignore = true)
     void updateEntityFromRequest(UpdateUserRequest request, @MappingTarget User entity);
+
+    UpdateUserRequest copy(UpdateUserRequest request);
+
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    void mergeRequest(UpdateUserRequest newer, @MappingTarget UpdateUserRequest target);
 }
@@ -0,0 +1,150 @@
+package com.example.testbbl.repository;
+
+import com.example.testbbl.model.User;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Hand-written statements over {@code users}; the multi-row ones are sent as a single R2DBC batch
+ * binding per row. Updates stamp {@code updated_at} with the database clock themselves, so change
+ * tracking does not depend on a dialect-specific {@code ON UPDATE} column clause.
+ */
+public final class UserBatchStatements {
+
+    static final String INSERT_SQL =
+            "INSERT INTO users (id, name, username, email, phone, website) VALUES ($1, $2, $3, $4, $5, $6)";
+    static final String INSERT_GENERATED_ID_SQL =
+            "INSERT INTO users (name, username, email, phone, website) VALUES ($1, $2, $3, $4, $5)";
+    static final String UPDATE_SQL = "UPDATE users SET name = $1, username = $2, email = $3, phone = $4, website = $5,"
+            + " updated_at = CURRENT_TIMESTAMP WHERE id = $6";
+    static final String PATCH_SQL = "UPDATE users SET name = COALESCE($1, name), username = COALESCE($2, username),"
+            + " phone = COALESCE($3, phone), website = COALESCE($4, website), updated_at = CURRENT_TIMESTAMP WHERE id = $5";
+    static final String PATCH_WITH_EMAIL_SQL = "UPDATE users SET name = COALESCE($1, name), username = COALESCE($2, username),"
+            + " email = COALESCE($3, email), phone = COALESCE($4, phone), website = COALESCE($5, website),"
+            + " updated_at = CURRENT_TIMESTAMP WHERE id = $6";
+
+    private UserBatchStatements() {
+    }
+
+    /**
+     * Inserts the users with their ids, or, when none of them has one, lets the identity column
+     * assign the ids; the emitted users then keep a {@code null} id.
+     */
+    public static Flux<User> insertAll(DatabaseClient databaseClient, List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        boolean generatedIds = users.get(0).getId() == null;
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(generatedIds ? INSERT_GENERATED_ID_SQL : INSERT_SQL);
+            int column = generatedIds ? 0 : 1;
+            for (int i = 0; i < users.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                User user = users.get(i);
+                if ((user.getId() == null) != generatedIds) {
+                    return Flux.error(new IllegalArgumentException("Batched inserts need ids on all users or on none"));
+                }
+                if (!generatedIds) {
+                    statement.bind(0, user.getId());
+                }
+                bind(statement, column, user.getName());
+                bind(statement, column + 1, user.getUsername());
+                bind(statement, column + 2, user.getEmail());
+                bind(statement, column + 3, user.getPhone());
+                bind(statement, column + 4, user.getWebsite());
+            }
+            return Flux.from(statement.execute())
+                    .flatMap(Result::getRowsUpdated)
+                    .thenMany(Flux.fromIterable(users));
+        });
+    }
+
+    /**
+     * Writes every column of an existing user. Fails like {@code R2dbcEntityTemplate.update} when
+     * the row does not exist.
+     */
+    public static <S extends User> Mono<S> update(DatabaseClient databaseClient, S user) {
+        return databaseClient.inConnection(connection -> {
+            Statement statement = connection.createStatement(UPDATE_SQL);
+            bind(statement, 0, user.getName());
+            bind(statement, 1, user.getUsername());
+            bind(statement, 2, user.getEmail());
+            bind(statement, 3, user.getPhone());
+            bind(statement, 4, user.getWebsite());
+            statement.bind(5, user.getId());
+            return Flux.from(statement.execute())
+                    .flatMap(Result::getRowsUpdated)
+                    .reduce(0L, Long::sum);
+        }).flatMap(updated -> updated > 0
+                ? Mono.just(user)
+                : Mono.error(new TransientDataAccessResourceException(
+                        "Failed to update table [users]; Row with Id [" + user.getId() + "] does not exist")));
+    }
+
+    /**
+     * Writes the non-null fields of each patch and keeps the stored value for null fields. The
+     * email is never written: changing it needs a uniqueness check, which only the synchronous
+     * update path does.
+     *
+     * @return the number of rows updated
+     */
+    public static Mono<Long> patchAll(DatabaseClient databaseClient, List<User> patches) {
+        if (patches.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return databaseClient.inConnection(connection -> {
+            Statement statement = connection.createStatement(PATCH_SQL);
+            for (int i = 0; i < patches.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                User patch = patches.get(i);
+                bind(statement, 0, patch.getName());
+                bind(statement, 1, patch.getUsername());
+                bind(statement, 2, patch.getPhone());
+                bind(statement, 3, patch.getWebsite());
+                statement.bind(4, patch.getId());
+            }
+            return Flux.from(statement.execute())
+                    .flatMap(Result::getRowsUpdated)
+                    .reduce(0L, Long::sum);
+        });
+    }
+
+    /**
+     * Writes the non-null fields of one patch, including the email, and keeps the stored value for
+     * null fields. The caller checks a changed email for uniqueness first.
+     *
+     * @return the number of rows updated, zero when the user does not exist
+     */
+    public static Mono<Long> patch(DatabaseClient databaseClient, User patch) {
+        return databaseClient.inConnection(connection -> {
+            Statement statement = connection.createStatement(PATCH_WITH_EMAIL_SQL);
+            bind(statement, 0, patch.getName());
+            bind(statement, 1, patch.getUsername());
+            bind(statement, 2, patch.getEmail());
+            bind(statement, 3, patch.getPhone());
+            bind(statement, 4, patch.getWebsite());
+            statement.bind(5, patch.getId());
+            return Flux.from(statement.execute())
+                    .flatMap(Result::getRowsUpdated)
+                    .reduce(0L, Long::sum);
+        });
+    }
+
+    static void bind(Statement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index, String.class);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+}
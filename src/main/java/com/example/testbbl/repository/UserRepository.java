@@ -1,12 +1,27 @@
 package com.example.testbbl.repository;
 
 import com.example.testbbl.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 @Repository
-public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+public interface UserRepository extends ReactiveCrudRepository<User, Long>, UserRepositoryCustom {
+    String MAX_UPDATED_AT_SQL = "SELECT COALESCE(MAX(updated_at), TIMESTAMP '1970-01-01 00:00:00') FROM users";
+    String UPDATED_SINCE_SQL = "SELECT * FROM users WHERE updated_at >= :since";
+
     Mono<Boolean> existsByEmailIgnoreCase(String email);
     Mono<User> findByEmailIgnoreCase(String email);
-}
\ No newline at end of file
+    Flux<User> findAllBy(Pageable pageable);
+
+    @Query(MAX_UPDATED_AT_SQL)
+    Mono<LocalDateTime> findMaxUpdatedAt();
+
+    @Query(UPDATED_SINCE_SQL)
+    Flux<User> findUpdatedSince(LocalDateTime since);
+}
@@ -0,0 +1,43 @@
+package com.example.testbbl.repository;
+
+import com.example.testbbl.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Inserts the user as a new row, including an id assigned by the application.
+     * {@code save} would treat an entity with an id as an update.
+     */
+    <S extends User> Mono<S> insert(S user);
+
+    /**
+     * Writes all columns of an existing user and stamps {@code updated_at}. Use it instead of
+     * {@code save} for updates, which would leave the change invisible to incremental catch-up.
+     */
+    <S extends User> Mono<S> update(S user);
+
+    /**
+     * Writes the non-null fields of the patch, including a changed email, and stamps
+     * {@code updated_at}. Columns the patch leaves null keep their stored value.
+     *
+     * @return the number of rows updated, zero when the user does not exist
+     */
+    Mono<Long> patch(User patch);
+
+    /**
+     * Inserts all users with one batched statement. Either every user carries its id or none does
+     * and the database assigns them.
+     */
+    Flux<User> insertAll(List<User> users);
+
+    /**
+     * Writes the non-null fields of each patch, except the email, with one batched {@code UPDATE}.
+     *
+     * @return the number of rows updated
+     */
+    Mono<Long> patchAll(List<User> patches);
+}
@@ -0,0 +1,40 @@
+package com.example.testbbl.repository;
+
+import com.example.testbbl.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public <S extends User> Mono<S> insert(S user) {
+        return template.insert(user);
+    }
+
+    @Override
+    public <S extends User> Mono<S> update(S user) {
+        return UserBatchStatements.update(template.getDatabaseClient(), user);
+    }
+
+    @Override
+    public Mono<Long> patch(User patch) {
+        return UserBatchStatements.patch(template.getDatabaseClient(), patch);
+    }
+
+    @Override
+    public Flux<User> insertAll(List<User> users) {
+        return UserBatchStatements.insertAll(template.getDatabaseClient(), users);
+    }
+
+    @Override
+    public Mono<Long> patchAll(List<User> patches) {
+        return UserBatchStatements.patchAll(template.getDatabaseClient(), patches);
+    }
+}
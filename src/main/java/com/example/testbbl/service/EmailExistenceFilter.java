@@ -0,0 +1,87 @@
+package com.example.testbbl.service;
+
+import com.example.testbbl.model.User;
+import com.example.testbbl.snapshot.UserSnapshotService;
+import com.example.testbbl.util.BloomFilter;
+import com.example.testbbl.util.EmailNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory Bloom filter over the normalized emails of all users.
+ * <p>
+ * A negative answer means no user with that email existed when this node last saw the table, so
+ * {@code createUser} can skip the {@code existsByEmailIgnoreCase} round trip and rely on the
+ * case-insensitive unique index, which also catches emails created on other nodes since. Until
+ * the startup load (snapshot plus catch-up, or a table scan) has completed every email is
+ * reported as a possible match. Deleted emails stay in the filter and only cost an extra lookup.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(EmailFilterProperties.class)
+public class EmailExistenceFilter {
+
+    private final UserSnapshotService userSnapshotService;
+    private final EmailFilterProperties properties;
+    private final BloomFilter filter;
+    private final Counter skippedLookups;
+    private volatile boolean ready;
+
+    public EmailExistenceFilter(UserSnapshotService userSnapshotService, EmailFilterProperties properties, MeterRegistry meterRegistry) {
+        this.userSnapshotService = userSnapshotService;
+        this.properties = properties;
+        this.filter = new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+        this.skippedLookups = Counter.builder("users.email.filter.skipped.lookups")
+                .description("Email existence checks answered by the filter without a database query")
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.false.positive.rate", filter, BloomFilter::expectedFalsePositiveRate)
+                .description("Expected false positive rate of the email existence filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        userSnapshotService.warmUpUsers()
+                .map(User::getEmail)
+                .doOnNext(this::add)
+                .count()
+                .subscribe(count -> {
+                    ready = true;
+                    log.info("Email existence filter loaded {} emails, expected false positive rate {}",
+                            count, filter.expectedFalsePositiveRate());
+                }, err -> log.warn("Email existence filter warm-up failed, existence checks keep hitting the database", err));
+    }
+
+    public void add(String email) {
+        if (email != null) {
+            filter.put(EmailNormalizer.normalize(email));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * {@code false} only if the email is definitely not taken as far as this node knows.
+     */
+    public boolean mightContain(String email) {
+        if (!ready || email == null) {
+            return true;
+        }
+        boolean possible = filter.mightContain(EmailNormalizer.normalize(email));
+        if (!possible) {
+            skippedLookups.increment();
+        }
+        return possible;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.testbbl.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.email-filter")
+public class EmailFilterProperties {
+
+    private boolean enabled = true;
+    private long expectedInsertions = 1_000_000;
+    private double falsePositiveRate = 0.01;
+}
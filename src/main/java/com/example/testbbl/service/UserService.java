@@ -4,37 +4,46 @@ import com.example.testbbl.dto.PagedResult;
 import com.example.testbbl.dto.PaginationInfo;
 import com.example.testbbl.dto.request.CreateUserRequest;
 import com.example.testbbl.dto.request.UpdateUserRequest;
+import com.example.testbbl.dto.response.UserLookupEntry;
+import com.example.testbbl.dto.response.UserLookupResponse;
 import com.example.testbbl.dto.response.UserResponse;
 import com.example.testbbl.exception.EmailAlreadyExistsException;
 import com.example.testbbl.exception.UserNotFoundException;
+import com.example.testbbl.id.IdGenerator;
 import com.example.testbbl.model.User;
 import com.example.testbbl.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    // keeps each IN list well under the bind parameter limits of H2 and PostgreSQL
+    static final int LOOKUP_CHUNK_SIZE = 500;
+    private static final int LOOKUP_CONCURRENCY = 4;
+
     private final UserRepository userRepository;
     private final com.example.testbbl.mapper.UserMapper userMapper;
+    private final IdGenerator idGenerator;
+    private final UserUpdateBuffer userUpdateBuffer;
+    private final EmailExistenceFilter emailExistenceFilter;
 
     public Flux<UserResponse> getAllUsers(int page, int size) {
         int safeSize = Math.max(1, size);
         int safePage = Math.max(0, page);
-        Pageable pageable = PageRequest.of(safePage, safeSize);
-        long skip = (long) pageable.getPageNumber() * pageable.getPageSize();
-        return userRepository.findAll()
-                .skip(skip)
-                .take(pageable.getPageSize())
+        Pageable pageable = PageRequest.of(safePage, safeSize, Sort.by("id"));
+        return userRepository.findAllBy(pageable)
+                .map(userUpdateBuffer::overlay)
                 .map(userMapper::toResponse);
     }
 
@@ -54,55 +63,112 @@ public class UserService {
 
     public Mono<UserResponse> getUserById(Long id) {
         return userRepository.findById(id)
+                .map(userUpdateBuffer::overlay)
                 .map(userMapper::toResponse)
-                .switchIfEmpty(Mono.error(new UserNotFoundException("User not found with id: " + id)));
+                .switchIfEmpty(Mono.error(() -> UserNotFoundException.forId(id)));
+    }
+
+    /**
+     * Looks up many users with chunked {@code id IN (...)} queries and emits one entry per distinct
+     * requested id, in request order, including the ids that do not exist.
+     */
+    public Flux<UserLookupEntry> streamUsersByIds(List<Long> ids) {
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += LOOKUP_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinct.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMapSequential(this::lookupChunk, LOOKUP_CONCURRENCY);
+    }
+
+    public Mono<UserLookupResponse> getUsersByIds(List<Long> ids) {
+        return streamUsersByIds(ids)
+                .collectList()
+                .map(entries -> UserLookupResponse.builder()
+                        .users(entries.stream().filter(UserLookupEntry::found).map(UserLookupEntry::user).toList())
+                        .missingIds(entries.stream().filter(entry -> !entry.found()).map(UserLookupEntry::id).toList())
+                        .build());
+    }
+
+    private Flux<UserLookupEntry> lookupChunk(List<Long> chunk) {
+        return userRepository.findAllById(chunk)
+                .collectMap(User::getId)
+                .flatMapIterable(found -> chunk.stream()
+                        .map(id -> found.containsKey(id)
+                                ? UserLookupEntry.found(userMapper.toResponse(userUpdateBuffer.overlay(found.get(id))))
+                                : UserLookupEntry.missing(id))
+                        .toList());
     }
 
     public Mono<UserResponse> createUser(CreateUserRequest request) {
-        return userRepository.existsByEmailIgnoreCase(request.getEmail())
+        // definite negatives go straight to the insert; the unique email index is the backstop
+        Mono<Boolean> emailTaken = emailExistenceFilter.mightContain(request.getEmail())
+                ? userRepository.existsByEmailIgnoreCase(request.getEmail())
+                : Mono.just(false);
+        return emailTaken
                 .flatMap(exists -> {
                     if (exists) {
-                        return Mono.<User>error(new EmailAlreadyExistsException("Email already exists: " + request.getEmail()));
+                        return Mono.<User>error(EmailAlreadyExistsException.forEmail(request.getEmail()));
                     }
                     User entity = userMapper.toEntity(request);
-                    entity.setId(null); // ensure new entity
-                    return userRepository.save(entity);
+                    entity.setId(idGenerator.nextId()); // null lets the database assign it
+                    return userRepository.insert(entity);
                 })
+                .doOnNext(saved -> emailExistenceFilter.add(saved.getEmail()))
                 .map(userMapper::toResponse)
-                .onErrorMap(err -> (err instanceof DuplicateKeyException || err instanceof DataIntegrityViolationException),
-                        err -> new EmailAlreadyExistsException("Email already exists: " + request.getEmail()));
+                .onErrorMap(EmailAlreadyExistsException::isEmailConstraintViolation,
+                        err -> EmailAlreadyExistsException.forEmail(request.getEmail()));
     }
 
     public Mono<UserResponse> updateUser(Long id, UpdateUserRequest request) {
         return userRepository.findById(id)
-                .switchIfEmpty(Mono.error(new UserNotFoundException("User not found with id: " + id)))
+                .switchIfEmpty(Mono.error(() -> UserNotFoundException.forId(id)))
                 .flatMap(existing -> {
                     String newEmail = request.getEmail();
                     if (newEmail != null && !newEmail.equalsIgnoreCase(existing.getEmail())) {
                         return userRepository.findByEmailIgnoreCase(newEmail)
                                 .flatMap(found -> !found.getId().equals(id)
-                                        ? Mono.<User>error(new EmailAlreadyExistsException("Email already exists: " + newEmail))
+                                        ? Mono.<User>error(EmailAlreadyExistsException.forEmail(newEmail))
                                         : Mono.just(existing))
                                 .switchIfEmpty(Mono.just(existing))
-                                .flatMap(user -> {
-                                    userMapper.updateEntityFromRequest(request, user);
-                                    return userRepository.save(user);
-                                });
+                                .flatMap(available -> writeThrough(id, request));
+                    } else if (userUpdateBuffer.offer(id, request)) {
+                        return Mono.just(userUpdateBuffer.overlay(existing));
                     } else {
-                        userMapper.updateEntityFromRequest(request, existing);
-                        return userRepository.save(existing);
+                        return writeThrough(id, request);
                     }
                 })
+                .doOnNext(saved -> emailExistenceFilter.add(saved.getEmail()))
                 .map(userMapper::toResponse)
-                .onErrorMap(err -> (err instanceof DuplicateKeyException || err instanceof DataIntegrityViolationException),
-                        err -> new EmailAlreadyExistsException("Email already exists: " + request.getEmail()));
+                .onErrorMap(EmailAlreadyExistsException::isEmailConstraintViolation,
+                        err -> EmailAlreadyExistsException.forEmail(request.getEmail()));
+    }
+
+    /**
+     * Writes the request together with the user's buffered changes as one partial update, so
+     * columns neither of them sets keep the stored value even if a batch committed after the row
+     * was read, then answers with the row as stored.
+     */
+    private Mono<User> writeThrough(Long id, UpdateUserRequest request) {
+        User patch = new User();
+        return userUpdateBuffer.drain(id)
+                .doOnNext(buffered -> userMapper.updateEntityFromRequest(buffered, patch))
+                .then(Mono.defer(() -> {
+                    userMapper.updateEntityFromRequest(request, patch);
+                    patch.setId(id);
+                    return userRepository.patch(patch);
+                }))
+                .then(Mono.defer(() -> userRepository.findById(id)))
+                .switchIfEmpty(Mono.error(() -> UserNotFoundException.forId(id)))
+                .map(userUpdateBuffer::overlay);
     }
 
     public Mono<Void> deleteUser(Long id) {
         return userRepository.existsById(id)
                 .flatMap(exists -> exists
                         ? userRepository.deleteById(id)
-                        : Mono.error(new UserNotFoundException("User not found with id: " + id))
+                        : Mono.error(() -> UserNotFoundException.forId(id))
                 );
     }
 
@@ -0,0 +1,188 @@
+package com.example.testbbl.service;
+
+import com.example.testbbl.dto.request.UpdateUserRequest;
+import com.example.testbbl.mapper.UserMapper;
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for {@code PUT /users/{id}} bursts.
+ * <p>
+ * Updates to the same user are merged field by field with the null-ignore semantics of
+ * {@link UserMapper#updateEntityFromRequest}, and every flush interval the merged changes are
+ * written with one batched partial {@code UPDATE} that only sets the buffered fields, so columns
+ * changed elsewhere in the meantime are kept. Reads on this node see pending and in-flight changes
+ * through {@link #overlay(User)}. When the buffer is full or disabled, {@link #offer} returns
+ * {@code false} and the caller writes synchronously, which pushes back on the client.
+ * Email changes are never buffered because their uniqueness has to be checked before answering.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class UserUpdateBuffer {
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final WriteBehindProperties properties;
+
+    private final ConcurrentHashMap<Long, UpdateUserRequest> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, InFlight> inFlight = new ConcurrentHashMap<>();
+    private Disposable flusher;
+
+    private record InFlight(UpdateUserRequest request, Sinks.Empty<Void> settled) {
+    }
+
+    public UserUpdateBuffer(UserRepository userRepository, UserMapper userMapper, WriteBehindProperties properties) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        flusher = Flux.interval(properties.getFlushInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> flush()
+                        .onErrorResume(err -> {
+                            log.warn("Write-behind flush failed, changes were requeued", err);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.dispose();
+        Long flushed = flush().block(properties.getShutdownTimeout());
+        log.info("Flushed {} buffered user updates on shutdown", flushed);
+    }
+
+    /**
+     * Buffers the update unless it changes the email or the buffer is full.
+     */
+    public boolean offer(Long id, UpdateUserRequest request) {
+        if (!properties.isEnabled() || request.getEmail() != null) {
+            return false;
+        }
+        if (pending.size() >= properties.getMaxPendingUsers() && !pending.containsKey(id)) {
+            return false;
+        }
+        pending.compute(id, (key, current) -> merge(current, request));
+        return true;
+    }
+
+    /**
+     * Applies this node's not yet persisted changes for the user, oldest first.
+     */
+    public User overlay(User user) {
+        if (user == null || user.getId() == null) {
+            return user;
+        }
+        InFlight flushing = inFlight.get(user.getId());
+        if (flushing != null) {
+            userMapper.updateEntityFromRequest(flushing.request(), user);
+        }
+        UpdateUserRequest buffered = pending.get(user.getId());
+        if (buffered != null) {
+            userMapper.updateEntityFromRequest(buffered, user);
+        }
+        return user;
+    }
+
+    /**
+     * Takes the user's buffered changes for a synchronous write, once no batch writing the user is
+     * in flight. A batch that committed is already in the row; a failed one was requeued and is part
+     * of the returned changes. No buffered write for the user can land after the synchronous one.
+     */
+    public Mono<UpdateUserRequest> drain(Long id) {
+        return Mono.defer(() -> {
+            // a flush moves the entry to in-flight while holding its pending slot, so removing first
+            // either takes the changes or finds the batch that took them
+            UpdateUserRequest buffered = pending.remove(id);
+            InFlight flushing = inFlight.get(id);
+            if (flushing == null) {
+                return Mono.justOrEmpty(buffered);
+            }
+            // newer than the batch: put them back so a failed batch is requeued underneath them
+            if (buffered != null) {
+                requeue(Map.of(id, buffered));
+            }
+            return flushing.settled().asMono().then(drain(id));
+        });
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    Mono<Long> flush() {
+        return Flux.defer(() -> Flux.fromIterable(new ArrayList<>(pending.keySet())))
+                .buffer(properties.getMaxBatchSize())
+                .concatMap(this::flushBatch)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> flushBatch(List<Long> ids) {
+        Map<Long, UpdateUserRequest> batch = new HashMap<>();
+        Sinks.Empty<Void> settled = Sinks.empty();
+        for (Long id : ids) {
+            pending.computeIfPresent(id, (key, request) -> {
+                inFlight.put(key, new InFlight(request, settled));
+                batch.put(key, request);
+                return null;
+            });
+        }
+        if (batch.isEmpty()) {
+            return Mono.just(0L);
+        }
+        List<User> patches = batch.entrySet().stream()
+                .map(entry -> toPatch(entry.getKey(), entry.getValue()))
+                .toList();
+        return userRepository.patchAll(patches)
+                .doOnError(err -> requeue(batch))
+                .doOnCancel(() -> requeue(batch))
+                .doFinally(signal -> {
+                    batch.keySet().forEach(inFlight::remove);
+                    settled.tryEmitEmpty();
+                });
+    }
+
+    private User toPatch(Long id, UpdateUserRequest request) {
+        User patch = new User();
+        userMapper.updateEntityFromRequest(request, patch);
+        patch.setId(id);
+        patch.setEmail(null);
+        return patch;
+    }
+
+    private void requeue(Map<Long, UpdateUserRequest> batch) {
+        batch.forEach((id, older) -> pending.compute(id, (key, newer) -> newer == null ? older : merge(older, newer)));
+    }
+
+    private UpdateUserRequest merge(UpdateUserRequest current, UpdateUserRequest newer) {
+        UpdateUserRequest merged = current == null ? new UpdateUserRequest() : userMapper.copy(current);
+        userMapper.mergeRequest(newer, merged);
+        return merged;
+    }
+}
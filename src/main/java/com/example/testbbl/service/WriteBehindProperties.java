@@ -0,0 +1,17 @@
+package com.example.testbbl.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.write-behind")
+public class WriteBehindProperties {
+
+    private boolean enabled = false;
+    private Duration flushInterval = Duration.ofMillis(250);
+    private int maxPendingUsers = 10_000;
+    private int maxBatchSize = 500;
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
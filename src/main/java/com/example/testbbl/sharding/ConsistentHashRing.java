@@ -0,0 +1,42 @@
+package com.example.testbbl.sharding;
+
+import com.example.testbbl.util.Hashing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to shard indexes with virtual nodes, so adding a shard only moves roughly
+ * {@code 1/n} of the keys instead of rehashing everything.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    private final int shardCount;
+
+    public ConsistentHashRing(List<String> shardNames, int virtualNodes) {
+        if (shardNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        for (int shard = 0; shard < shardNames.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(Hashing.hash64(shardNames.get(shard) + "#" + node), shard);
+            }
+        }
+        this.shardCount = shardNames.size();
+    }
+
+    public int shardFor(String key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(Hashing.hash64(key));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+}
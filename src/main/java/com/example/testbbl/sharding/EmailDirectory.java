@@ -0,0 +1,84 @@
+package com.example.testbbl.sharding;
+
+import com.example.testbbl.model.User;
+import com.example.testbbl.util.EmailNormalizer;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Statements over one shard's {@code user_emails} table, which maps normalized emails to user ids.
+ * Claims and releases always carry the user id, so releasing never removes another user's claim.
+ */
+final class EmailDirectory {
+
+    record Entry(String email, long userId) {
+    }
+
+    static final String LOOKUP_SQL = "SELECT user_id FROM user_emails WHERE email = $1";
+    static final String CLAIM_SQL = "INSERT INTO user_emails (email, user_id) VALUES ($1, $2)";
+    static final String RELEASE_SQL = "DELETE FROM user_emails WHERE email = $1 AND user_id = $2";
+    static final String PAGE_SQL = "SELECT email, user_id FROM user_emails WHERE email > $1 ORDER BY email LIMIT $2";
+
+    private EmailDirectory() {
+    }
+
+    static Mono<Long> lookup(DatabaseClient databaseClient, String email) {
+        return databaseClient.sql(LOOKUP_SQL)
+                .bind(0, EmailNormalizer.normalize(email))
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    static Mono<Void> claim(DatabaseClient databaseClient, String email, long userId) {
+        return databaseClient.sql(CLAIM_SQL)
+                .bind(0, EmailNormalizer.normalize(email))
+                .bind(1, userId)
+                .then();
+    }
+
+    static Mono<Void> release(DatabaseClient databaseClient, String email, long userId) {
+        return databaseClient.sql(RELEASE_SQL)
+                .bind(0, EmailNormalizer.normalize(email))
+                .bind(1, userId)
+                .then();
+    }
+
+    static Mono<Void> claimAll(DatabaseClient databaseClient, List<User> users) {
+        return batch(databaseClient, CLAIM_SQL, users);
+    }
+
+    static Mono<Void> releaseAll(DatabaseClient databaseClient, List<User> users) {
+        return batch(databaseClient, RELEASE_SQL, users);
+    }
+
+    static Mono<List<Entry>> page(DatabaseClient databaseClient, String afterEmail, int limit) {
+        return databaseClient.sql(PAGE_SQL)
+                .bind(0, afterEmail)
+                .bind(1, limit)
+                .map(row -> new Entry(row.get(0, String.class), row.get(1, Long.class)))
+                .all()
+                .collectList();
+    }
+
+    private static Mono<Void> batch(DatabaseClient databaseClient, String sql, List<User> users) {
+        if (users.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(sql);
+            for (int i = 0; i < users.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind(0, EmailNormalizer.normalize(users.get(i).getEmail()));
+                statement.bind(1, users.get(i).getId());
+            }
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+        }).then();
+    }
+}
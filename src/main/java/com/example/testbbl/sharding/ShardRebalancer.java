@@ -0,0 +1,96 @@
+package com.example.testbbl.sharding;
+
+import com.example.testbbl.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.example.testbbl.sharding.ShardedUserRepository.byId;
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Moves every user row and email directory entry that is not on its owning shard, e.g. after a
+ * shard was added to the ring. Each shard is scanned with keyset pagination, so memory stays
+ * bounded by the batch size. Ids and claimed emails are globally unique, so a copy already present
+ * on the owner can only come from an interrupted earlier move and the source is simply removed.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ShardRebalancer {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ShardedUserRepository repository;
+
+    /**
+     * @return the number of users moved
+     */
+    public Mono<Long> rebalance() {
+        List<UserShard> shards = repository.shards();
+        return Flux.range(0, shards.size())
+                .concatMap(index -> moveUsers(shards, index).zipWith(moveDirectoryEntries(shards, index))
+                        .doOnNext(moved -> log.info("Moved {} users and {} email directory entries off shard {}",
+                                moved.getT1(), moved.getT2(), shards.get(index).name()))
+                        .map(moved -> moved.getT1()))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> moveUsers(List<UserShard> shards, int index) {
+        return scanUsers(shards.get(index))
+                .filter(user -> repository.ownerOf(user.getId()) != index)
+                .concatMap(user -> moveUser(user, shards.get(index), shards.get(repository.ownerOf(user.getId()))))
+                .count();
+    }
+
+    private Mono<Long> moveDirectoryEntries(List<UserShard> shards, int index) {
+        return scanDirectory(shards.get(index))
+                .filter(entry -> repository.directoryOwnerOf(entry.email()) != index)
+                .concatMap(entry -> moveDirectoryEntry(entry, shards.get(index),
+                        shards.get(repository.directoryOwnerOf(entry.email()))))
+                .count();
+    }
+
+    private Mono<User> moveUser(User user, UserShard source, UserShard target) {
+        return target.template().exists(byId(user.getId()), User.class)
+                .flatMap(copied -> copied ? Mono.just(user) : target.template().insert(user))
+                .flatMap(moved -> source.template().delete(byId(moved.getId()), User.class).thenReturn(moved));
+    }
+
+    private Mono<EmailDirectory.Entry> moveDirectoryEntry(EmailDirectory.Entry entry, UserShard source, UserShard target) {
+        DatabaseClient targetClient = target.template().getDatabaseClient();
+        return EmailDirectory.lookup(targetClient, entry.email())
+                .hasElement()
+                .flatMap(copied -> copied ? Mono.<Void>empty() : EmailDirectory.claim(targetClient, entry.email(), entry.userId()))
+                .then(EmailDirectory.release(source.template().getDatabaseClient(), entry.email(), entry.userId()))
+                .thenReturn(entry);
+    }
+
+    private Flux<User> scanUsers(UserShard shard) {
+        return userPage(shard, Long.MIN_VALUE)
+                .expand(batch -> batch.size() < BATCH_SIZE
+                        ? Mono.empty()
+                        : userPage(shard, batch.get(batch.size() - 1).getId()))
+                .flatMapIterable(batch -> batch);
+    }
+
+    private Mono<List<User>> userPage(UserShard shard, long afterId) {
+        return shard.template()
+                .select(query(where("id").greaterThan(afterId)).sort(Sort.by("id")).limit(BATCH_SIZE), User.class)
+                .collectList();
+    }
+
+    private Flux<EmailDirectory.Entry> scanDirectory(UserShard shard) {
+        DatabaseClient client = shard.template().getDatabaseClient();
+        return EmailDirectory.page(client, "", BATCH_SIZE)
+                .expand(batch -> batch.size() < BATCH_SIZE
+                        ? Mono.empty()
+                        : EmailDirectory.page(client, batch.get(batch.size() - 1).email(), BATCH_SIZE))
+                .flatMapIterable(batch -> batch);
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.testbbl.sharding;
+
+import com.example.testbbl.id.IdGenerator;
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserBatchStatements;
+import com.example.testbbl.repository.UserRepository;
+import com.example.testbbl.util.EmailNormalizer;
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * {@link UserRepository} spread over several databases.
+ * <p>
+ * Users live on the shard that owns their id on a {@link ConsistentHashRing}, so every id based
+ * operation touches a single shard. Ids must therefore be known before the insert: new users get
+ * one from the {@link IdGenerator}. Email lookups go through the {@link EmailDirectory}, whose
+ * entries are placed by the hash of the normalized email and whose unique index keeps emails
+ * unique across all shards. Listing merges the per-shard id-ordered streams; {@code count} sums
+ * the shards.
+ * <p>
+ * A user row and its directory entry usually live on different databases, so writes touching both
+ * are not atomic. The email is claimed before the row is written and released again when the row
+ * write fails; a crash in between can leave an unused claim, but never a user without one.
+ */
+public class ShardedUserRepository implements UserRepository {
+
+    private static final Comparator<User> BY_ID = Comparator.comparing(User::getId);
+
+    private final List<UserShard> shards;
+    private final ConsistentHashRing ring;
+    private final IdGenerator idGenerator;
+
+    public ShardedUserRepository(List<UserShard> shards, ConsistentHashRing ring, IdGenerator idGenerator) {
+        Assert.isTrue(shards.size() == ring.shardCount(), "Ring does not match the configured shards");
+        this.shards = List.copyOf(shards);
+        this.ring = ring;
+        this.idGenerator = idGenerator;
+    }
+
+    public List<UserShard> shards() {
+        return shards;
+    }
+
+    public int ownerOf(Long id) {
+        return ring.shardFor(Long.toString(id));
+    }
+
+    public int directoryOwnerOf(String email) {
+        return ring.shardFor(EmailNormalizer.normalize(email));
+    }
+
+    @Override
+    public Mono<Boolean> existsByEmailIgnoreCase(String email) {
+        Assert.notNull(email, "Email must not be null");
+        return EmailDirectory.lookup(directoryFor(email), email).hasElement();
+    }
+
+    @Override
+    public Mono<User> findByEmailIgnoreCase(String email) {
+        Assert.notNull(email, "Email must not be null");
+        String normalized = EmailNormalizer.normalize(email);
+        // a claim may briefly outlive an email change; only return the user if it still has the email
+        return EmailDirectory.lookup(directoryFor(email), email)
+                .flatMap(this::findById)
+                .filter(user -> normalized.equals(EmailNormalizer.normalize(user.getEmail())));
+    }
+
+    /**
+     * Pages in id order, the only order the shards can be merged in. Every shard returns its first
+     * {@code offset + size} rows; the merged stream then skips the offset, so no shard is read past
+     * the requested page. The per-shard limit is clamped to {@code Integer.MAX_VALUE}, so pages past
+     * the last row come back empty like they do unsharded.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Flux<User> findAllBy(Pageable pageable) {
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+        Flux<User>[] sources = shards.stream()
+                .map(shard -> shard.template().select(Query.empty().sort(Sort.by("id")).limit(limit), User.class))
+                .toArray(Flux[]::new);
+        return Flux.mergeComparing(BY_ID, sources)
+                .skip(pageable.getOffset())
+                .take(pageable.getPageSize());
+    }
+
+    @Override
+    public Mono<LocalDateTime> findMaxUpdatedAt() {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.template().getDatabaseClient()
+                        .sql(MAX_UPDATED_AT_SQL)
+                        .map(row -> row.get(0, LocalDateTime.class))
+                        .one())
+                .reduce((left, right) -> left.isAfter(right) ? left : right);
+    }
+
+    @Override
+    public Flux<User> findUpdatedSince(LocalDateTime since) {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.template().getDatabaseClient()
+                        .sql(UPDATED_SINCE_SQL)
+                        .bind("since", since)
+                        .map((row, metadata) -> shard.template().getConverter().read(User.class, row, metadata))
+                        .all());
+    }
+
+    @Override
+    public <S extends User> Mono<S> save(S entity) {
+        Assert.notNull(entity, "Entity must not be null");
+        return entity.getId() == null ? insert(entity) : update(entity);
+    }
+
+    @Override
+    public <S extends User> Mono<S> update(S user) {
+        Assert.notNull(user, "Entity must not be null");
+        UserShard owner = shardFor(user.getId());
+        return owner.template().selectOne(byId(user.getId()), User.class)
+                .flatMap(current -> sameEmail(current, user)
+                        ? updateRow(owner, user)
+                        : changeEmail(current.getEmail(), user, Mono.defer(() -> updateRow(owner, user))))
+                // no current row: let the update report the missing row like the unsharded repository
+                .switchIfEmpty(Mono.defer(() -> updateRow(owner, user)));
+    }
+
+    /**
+     * Patches the row on its owner; a changed email is claimed and released like in {@link #update}.
+     */
+    @Override
+    public Mono<Long> patch(User patch) {
+        Assert.notNull(patch, "Entity must not be null");
+        UserShard owner = shardFor(patch.getId());
+        Mono<Long> write = Mono.defer(() -> UserBatchStatements.patch(owner.template().getDatabaseClient(), patch));
+        if (patch.getEmail() == null) {
+            return write;
+        }
+        return owner.template().selectOne(byId(patch.getId()), User.class)
+                .flatMap(current -> sameEmail(current, patch) ? write : changeEmail(current.getEmail(), patch, write))
+                .switchIfEmpty(Mono.just(0L));
+    }
+
+    @Override
+    public <S extends User> Mono<S> insert(S user) {
+        Assert.notNull(user, "Entity must not be null");
+        assignId(user);
+        UserShard owner = shardFor(user.getId());
+        return EmailDirectory.claim(directoryFor(user.getEmail()), user.getEmail(), user.getId())
+                .then(Mono.defer(() -> owner.template().insert(user)
+                        .onErrorResume(err -> EmailDirectory.release(directoryFor(user.getEmail()), user.getEmail(), user.getId())
+                                .then(Mono.error(err)))));
+    }
+
+    @Override
+    public Flux<User> insertAll(List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        users.forEach(this::assignId);
+        // a failed shard releases only its own users' claims; the other shards finish their writes
+        return claimAll(users)
+                .thenMany(Flux.defer(() -> Flux.fromIterable(groupBy(users, user -> ownerOf(user.getId())).entrySet())
+                        .flatMapDelayError(entry -> UserBatchStatements.insertAll(
+                                        shards.get(entry.getKey()).template().getDatabaseClient(), entry.getValue())
+                                .onErrorResume(err -> releaseAll(entry.getValue()).thenMany(Flux.error(err))),
+                                shards.size(), 1)));
+    }
+
+    /**
+     * One batched patch per shard. Patches never write the email, so the directory is unaffected.
+     */
+    @Override
+    public Mono<Long> patchAll(List<User> patches) {
+        return Flux.fromIterable(groupBy(patches, patch -> ownerOf(patch.getId())).entrySet())
+                .flatMap(entry -> UserBatchStatements.patchAll(
+                        shards.get(entry.getKey()).template().getDatabaseClient(), entry.getValue()))
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public <S extends User> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends User> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<User> findById(Long id) {
+        Assert.notNull(id, "Id must not be null");
+        return shardFor(id).template().selectOne(byId(id), User.class);
+    }
+
+    @Override
+    public Mono<User> findById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        Assert.notNull(id, "Id must not be null");
+        return shardFor(id).template().exists(byId(id), User.class);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Flux<User> findAll() {
+        Flux<User>[] sources = shards.stream()
+                .map(shard -> shard.template().select(Query.empty().sort(Sort.by("id")), User.class))
+                .toArray(Flux[]::new);
+        return Flux.mergeComparing(BY_ID, sources);
+    }
+
+    @Override
+    public Flux<User> findAllById(Iterable<Long> ids) {
+        return Flux.fromIterable(groupBy(toList(ids), this::ownerOf).entrySet())
+                .flatMap(entry -> shards.get(entry.getKey()).template()
+                        .select(query(where("id").in(entry.getValue())), User.class));
+    }
+
+    @Override
+    public Flux<User> findAllById(Publisher<Long> idStream) {
+        return Flux.from(idStream).collectList().flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.template().count(Query.empty(), User.class))
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        Assert.notNull(id, "Id must not be null");
+        UserShard owner = shardFor(id);
+        return owner.template().selectOne(byId(id), User.class)
+                .flatMap(user -> owner.template().delete(byId(id), User.class)
+                        .then(EmailDirectory.release(directoryFor(user.getEmail()), user.getEmail(), id)));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(User entity) {
+        Assert.notNull(entity, "Entity must not be null");
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+        return Flux.fromIterable(toList(ids)).concatMap(this::deleteById).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends User> entities) {
+        return deleteAllById(StreamSupport.stream(entities.spliterator(), false).map(User::getId).toList());
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends User> entityStream) {
+        return Flux.from(entityStream).map(User::getId).collectList().flatMap(this::deleteAllById);
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.template().delete(Query.empty(), User.class)
+                        .then(shard.template().getDatabaseClient().sql("DELETE FROM user_emails").then()))
+                .then();
+    }
+
+    private <T> Mono<T> changeEmail(String previousEmail, User entity, Mono<T> write) {
+        return EmailDirectory.claim(directoryFor(entity.getEmail()), entity.getEmail(), entity.getId())
+                .then(write
+                        .onErrorResume(err -> EmailDirectory.release(directoryFor(entity.getEmail()), entity.getEmail(), entity.getId())
+                                .then(Mono.error(err))))
+                .flatMap(written -> EmailDirectory.release(directoryFor(previousEmail), previousEmail, entity.getId())
+                        .thenReturn(written));
+    }
+
+    private static <S extends User> Mono<S> updateRow(UserShard owner, S user) {
+        return UserBatchStatements.update(owner.template().getDatabaseClient(), user);
+    }
+
+    private Mono<Void> claimAll(List<User> users) {
+        return Flux.fromIterable(groupBy(users, user -> directoryOwnerOf(user.getEmail())).entrySet())
+                .flatMap(entry -> EmailDirectory.claimAll(shards.get(entry.getKey()).template().getDatabaseClient(), entry.getValue()))
+                .then()
+                .onErrorResume(err -> releaseAll(users).then(Mono.error(err)));
+    }
+
+    private Mono<Void> releaseAll(List<User> users) {
+        return Flux.fromIterable(groupBy(users, user -> directoryOwnerOf(user.getEmail())).entrySet())
+                .flatMap(entry -> EmailDirectory.releaseAll(shards.get(entry.getKey()).template().getDatabaseClient(), entry.getValue()))
+                .then();
+    }
+
+    private void assignId(User user) {
+        if (user.getId() == null) {
+            user.setId(Objects.requireNonNull(idGenerator.nextId(), "Sharding requires an id generator that assigns ids"));
+        }
+    }
+
+    private UserShard shardFor(Long id) {
+        return shards.get(ownerOf(id));
+    }
+
+    private DatabaseClient directoryFor(String email) {
+        return shards.get(directoryOwnerOf(email)).template().getDatabaseClient();
+    }
+
+    private static boolean sameEmail(User current, User updated) {
+        return Objects.equals(EmailNormalizer.normalize(current.getEmail()), EmailNormalizer.normalize(updated.getEmail()));
+    }
+
+    static Query byId(Long id) {
+        return query(where("id").is(id));
+    }
+
+    private static <T> Map<Integer, List<T>> groupBy(List<T> values, Function<T, Integer> owner) {
+        return values.stream().collect(Collectors.groupingBy(owner));
+    }
+
+    private static <T> List<T> toList(Iterable<? extends T> values) {
+        List<T> list = new ArrayList<>();
+        values.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.testbbl.sharding;
+
+import com.example.testbbl.id.IdGenerator;
+import com.example.testbbl.id.IdGeneratorProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    @Bean
+    @Primary
+    public ShardedUserRepository shardedUserRepository(ShardingProperties properties,
+                                                       IdGeneratorProperties idGeneratorProperties,
+                                                       IdGenerator idGenerator) {
+        // shards route by id, so ids must be known before the insert and unique across all shards
+        if (idGeneratorProperties.getStrategy() != IdGeneratorProperties.Strategy.SNOWFLAKE) {
+            throw new IllegalStateException("app.sharding requires app.id-generator.strategy=snowflake;"
+                    + " identity columns hand out the same ids on every shard");
+        }
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled is set but no app.sharding.shards are configured");
+        }
+        properties.getShards().forEach(shard -> UserShard.migrate(shard, properties.getMigrationLocations()));
+        List<UserShard> shards = properties.getShards().stream().map(UserShard::connect).toList();
+        ConsistentHashRing ring = new ConsistentHashRing(
+                properties.getShards().stream().map(ShardingProperties.Shard::getName).toList(),
+                properties.getVirtualNodes());
+        return new ShardedUserRepository(shards, ring, idGenerator);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardedUserRepository shardedUserRepository) {
+        return new ShardRebalancer(shardedUserRepository);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.sharding", name = "rebalance-on-startup", havingValue = "true")
+    public ApplicationRunner shardRebalanceRunner(ShardRebalancer shardRebalancer) {
+        return args -> log.info("Shard rebalance moved {} users", shardRebalancer.rebalance().block());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.testbbl.sharding;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+    private int virtualNodes = 128;
+    private boolean rebalanceOnStartup = false;
+    /**
+     * Shards get their own schema series: no identity column and no seed data, plus the email directory.
+     */
+    private List<String> migrationLocations = new ArrayList<>(List.of("classpath:db/shard"));
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Shard {
+        private String name;
+        private String r2dbcUrl;
+        private String jdbcUrl;
+        private String username;
+        private String password;
+    }
+}
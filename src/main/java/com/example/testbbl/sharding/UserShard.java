@@ -0,0 +1,32 @@
+package com.example.testbbl.sharding;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.flywaydb.core.Flyway;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+
+import java.util.List;
+
+public record UserShard(String name, ConnectionFactory connectionFactory, R2dbcEntityTemplate template) {
+
+    public static UserShard connect(ShardingProperties.Shard shard) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(shard.getR2dbcUrl()).mutate();
+        if (shard.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, shard.getUsername());
+        }
+        if (shard.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, shard.getPassword());
+        }
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+        return new UserShard(shard.getName(), connectionFactory, new R2dbcEntityTemplate(connectionFactory));
+    }
+
+    public static void migrate(ShardingProperties.Shard shard, List<String> locations) {
+        Flyway.configure()
+                .dataSource(shard.getJdbcUrl(), shard.getUsername(), shard.getPassword())
+                .locations(locations.toArray(String[]::new))
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.testbbl.snapshot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled = false;
+    private Path path = Path.of(System.getProperty("java.io.tmpdir"), "test-bbl", "users.snapshot");
+    private Duration writeInterval = Duration.ofMinutes(10);
+    private Duration fullRewriteInterval = Duration.ofHours(24);
+    /**
+     * Rows committed late can carry an updated_at slightly below the recorded high-water mark;
+     * catch-up starts this much earlier to pick them up.
+     */
+    private Duration catchUpOverlap = Duration.ofMinutes(1);
+}
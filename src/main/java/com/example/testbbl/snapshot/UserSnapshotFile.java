@@ -0,0 +1,183 @@
+package com.example.testbbl.snapshot;
+
+import com.example.testbbl.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of user records.
+ * <pre>
+ * header   magic "USNP" | version (int) | high-water mark, epoch micros (long)
+ * record   id (long) | name | username | email | phone | website
+ *          strings are a length (int, -1 for null) followed by UTF-8 bytes
+ * trailer  record count (long) | CRC32 of everything before it (long)
+ * </pre>
+ * Files are written to a temporary sibling and atomically moved into place, and read through a
+ * read-only memory mapping after the checksum has been verified.
+ */
+public final class UserSnapshotFile {
+
+    static final int MAGIC = 0x55534E50;
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    private static final int TRAILER_BYTES = 8 + 8;
+
+    private UserSnapshotFile() {
+    }
+
+    public static Writer create(Path target, long highWaterMarkMicros) throws IOException {
+        return new Writer(target, highWaterMarkMicros);
+    }
+
+    /**
+     * Maps and validates the snapshot; throws {@link InvalidSnapshotException} for a bad checksum,
+     * unknown version or truncated file.
+     */
+    public static Snapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                throw new InvalidSnapshotException("Unexpected snapshot size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new InvalidSnapshotException("Snapshot checksum mismatch");
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new InvalidSnapshotException("Not a version " + VERSION + " user snapshot");
+            }
+            return new Snapshot(buffer, buffer.getLong(8), buffer.getLong((int) size - TRAILER_BYTES));
+        }
+    }
+
+    public static final class Snapshot {
+        private final ByteBuffer buffer;
+        private final long highWaterMarkMicros;
+        private final long count;
+
+        private Snapshot(ByteBuffer buffer, long highWaterMarkMicros, long count) {
+            this.buffer = buffer;
+            this.highWaterMarkMicros = highWaterMarkMicros;
+            this.count = count;
+        }
+
+        public long highWaterMarkMicros() {
+            return highWaterMarkMicros;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public void forEach(Consumer<User> consumer) {
+            ByteBuffer records = buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES - TRAILER_BYTES);
+            long read = 0;
+            while (records.hasRemaining()) {
+                consumer.accept(new User(records.getLong(), readString(records), readString(records),
+                        readString(records), readString(records), readString(records)));
+                read++;
+            }
+            if (read != count) {
+                throw new InvalidSnapshotException("Snapshot holds " + read + " records but declares " + count);
+            }
+        }
+
+        private static String readString(ByteBuffer records) {
+            int length = records.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            records.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temporary;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream out;
+        private long count;
+        private boolean committed;
+
+        private Writer(Path target, long highWaterMarkMicros) throws IOException {
+            this.target = target;
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            this.temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            OutputStream file = Files.newOutputStream(temporary);
+            this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(highWaterMarkMicros);
+        }
+
+        public void append(User user) throws IOException {
+            out.writeLong(user.getId());
+            writeString(user.getName());
+            writeString(user.getUsername());
+            writeString(user.getEmail());
+            writeString(user.getPhone());
+            writeString(user.getWebsite());
+            count++;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Writes the trailer and atomically replaces the target file.
+         */
+        public void commit() throws IOException {
+            out.writeLong(count);
+            out.flush();
+            out.writeLong(crc.getValue());
+            out.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static class InvalidSnapshotException extends IllegalStateException {
+        public InvalidSnapshotException(String message) {
+            super(message);
+        }
+    }
+}
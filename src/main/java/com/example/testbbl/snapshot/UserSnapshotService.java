@@ -0,0 +1,170 @@
+package com.example.testbbl.snapshot;
+
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps a local {@link UserSnapshotFile} so in-memory structures over {@code users} can warm up
+ * without scanning the table.
+ * <p>
+ * At startup the snapshot is replayed from a memory mapping, followed by the rows whose
+ * {@code updated_at} is at or after its high-water mark. A missing or corrupt snapshot falls back
+ * to {@code findAll()}. Periodic writes merge the changed rows into the previous snapshot and only
+ * rescan the table every {@code full-rewrite-interval}. Deleted users stay in the snapshot until
+ * that full rewrite, so consumers must tolerate stale records.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class UserSnapshotService {
+
+    private final UserRepository userRepository;
+    private final SnapshotProperties properties;
+    private final AtomicReference<Instant> lastFullWrite = new AtomicReference<>(Instant.MIN);
+    private Disposable writer;
+
+    public UserSnapshotService(UserRepository userRepository, SnapshotProperties properties) {
+        this.userRepository = userRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * All users for warming up in-memory structures; records may repeat when a row changed after
+     * the snapshot was taken.
+     */
+    public Flux<User> warmUpUsers() {
+        if (!properties.isEnabled() || !Files.exists(properties.getPath())) {
+            return userRepository.findAll();
+        }
+        return Mono.fromCallable(() -> UserSnapshotFile.open(properties.getPath()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(snapshot -> lastFullWrite.compareAndSet(Instant.MIN, Instant.now()))
+                .flatMapMany(snapshot -> Flux.<User>create(sink -> {
+                            snapshot.forEach(sink::next);
+                            sink.complete();
+                        })
+                        .doOnComplete(() -> log.info("Loaded {} users from snapshot {}", snapshot.count(), properties.getPath()))
+                        .concatWith(Flux.defer(() -> userRepository.findUpdatedSince(catchUpFrom(snapshot.highWaterMarkMicros())))))
+                .onErrorResume(err -> {
+                    log.warn("User snapshot {} unusable, rebuilding from the database", properties.getPath(), err);
+                    return userRepository.findAll();
+                });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWriting() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        writer = Flux.interval(properties.getWriteInterval(), properties.getWriteInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> writeSnapshot()
+                        .onErrorResume(err -> {
+                            log.warn("Writing user snapshot failed", err);
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stopWriting() {
+        if (writer != null) {
+            writer.dispose();
+        }
+    }
+
+    public Mono<Long> writeSnapshot() {
+        boolean fullRewriteDue = lastFullWrite.get().isBefore(Instant.now().minus(properties.getFullRewriteInterval()));
+        return userRepository.findMaxUpdatedAt()
+                .flatMap(highWaterMark -> fullRewriteDue || !Files.exists(properties.getPath())
+                        ? writeFull(highWaterMark)
+                        : writeIncremental(highWaterMark).onErrorResume(UserSnapshotFile.InvalidSnapshotException.class,
+                                err -> writeFull(highWaterMark)))
+                .doOnNext(count -> log.info("Wrote {} users to snapshot {}", count, properties.getPath()));
+    }
+
+    private Mono<Long> writeFull(LocalDateTime highWaterMark) {
+        return Mono.using(
+                () -> UserSnapshotFile.create(properties.getPath(), toMicros(highWaterMark)),
+                file -> userRepository.findAll()
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(user -> append(file, user))
+                        .then(Mono.fromCallable(() -> {
+                            file.commit();
+                            lastFullWrite.set(Instant.now());
+                            return file.count();
+                        })),
+                UserSnapshotService::closeQuietly);
+    }
+
+    // only the changed rows are held in memory; everything else is copied from the previous snapshot
+    private Mono<Long> writeIncremental(LocalDateTime highWaterMark) {
+        return Mono.fromCallable(() -> UserSnapshotFile.open(properties.getPath()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(previous -> userRepository.findUpdatedSince(catchUpFrom(previous.highWaterMarkMicros()))
+                        .collectMap(User::getId)
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(changed -> merge(previous, changed, highWaterMark)));
+    }
+
+    private long merge(UserSnapshotFile.Snapshot previous, Map<Long, User> changed, LocalDateTime highWaterMark) {
+        try (UserSnapshotFile.Writer file = UserSnapshotFile.create(properties.getPath(), toMicros(highWaterMark))) {
+            previous.forEach(user -> {
+                User current = changed.remove(user.getId());
+                append(file, current != null ? current : user);
+            });
+            for (User user : changed.values()) {
+                file.append(user);
+            }
+            file.commit();
+            return file.count();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write user snapshot", e);
+        }
+    }
+
+    private LocalDateTime catchUpFrom(long highWaterMarkMicros) {
+        return LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC)
+                .plus(highWaterMarkMicros, ChronoUnit.MICROS)
+                .minus(properties.getCatchUpOverlap());
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), timestamp);
+    }
+
+    private static void append(UserSnapshotFile.Writer file, User user) {
+        try {
+            file.append(user);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write user snapshot", e);
+        }
+    }
+
+    private static void closeQuietly(UserSnapshotFile.Writer file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.debug("Could not clean up snapshot temp file", e);
+        }
+    }
+}
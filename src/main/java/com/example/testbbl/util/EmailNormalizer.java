@@ -0,0 +1,13 @@
+package com.example.testbbl.util;
+
+import java.util.Locale;
+
+public final class EmailNormalizer {
+
+    private EmailNormalizer() {
+    }
+
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.testbbl.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fast non-cryptographic 64-bit hashing for placing keys, not for anything an attacker chooses to
+ * collide.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes followed by the murmur3 finalizer, for better avalanche on short
+     * keys.
+     */
+    public static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return fmix64(h);
+    }
+
+    /**
+     * The murmur3 64-bit finalizer: spreads every input bit over the whole result.
+     */
+    public static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
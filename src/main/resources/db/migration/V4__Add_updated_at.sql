@@ -0,0 +1,4 @@
+-- Change tracking for incremental catch-up of in-memory structures (H2 syntax)
+ALTER TABLE users ADD COLUMN updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL;
+
+CREATE INDEX IF NOT EXISTS ix_users_updated_at ON users(updated_at);
@@ -0,0 +1,6 @@
+-- Emails are unique regardless of case (H2 syntax). ux_users_email only rejects exact duplicates, so
+-- a case variant inserted without the existence pre-check (e.g. a node whose email filter has not
+-- seen the original) used to succeed and break the case-insensitive lookups.
+ALTER TABLE users ADD COLUMN email_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(email));
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email_lower ON users(email_lower);
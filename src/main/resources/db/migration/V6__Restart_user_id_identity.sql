@@ -0,0 +1,3 @@
+-- Database-assigned ids start above the seeded rows (H2 syntax). V3 turned the id column into an
+-- identity after V2 had inserted id 1 explicitly, so the first generated id collided with it.
+ALTER TABLE users ALTER COLUMN id RESTART WITH 100;
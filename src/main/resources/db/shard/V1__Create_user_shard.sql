@@ -0,0 +1,25 @@
+-- Schema of one users shard. Ids are assigned by the application, so there is no identity column,
+-- and there is no seed data: a seeded row would exist once per shard.
+CREATE TABLE users
+(
+    id         BIGINT       NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    username   VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL,
+    phone      VARCHAR(255),
+    website    VARCHAR(255),
+    updated_at TIMESTAMP    DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id)
+);
+
+CREATE INDEX ix_users_updated_at ON users (updated_at);
+
+-- Email directory: normalized email -> user id, stored on the shard owning the email's hash.
+-- The unique index makes emails unique across all shards, case-insensitively.
+CREATE TABLE user_emails
+(
+    email   VARCHAR(255) NOT NULL,
+    user_id BIGINT       NOT NULL
+);
+
+CREATE UNIQUE INDEX ux_users_email_directory ON user_emails (email);
@@ -3,6 +3,9 @@ package com.example.testbbl.controller;
 import com.example.testbbl.dto.PagedResult;
 import com.example.testbbl.dto.PaginationInfo;
 import com.example.testbbl.dto.request.CreateUserRequest;
+import com.example.testbbl.dto.request.UserLookupRequest;
+import com.example.testbbl.dto.response.UserLookupEntry;
+import com.example.testbbl.dto.response.UserLookupResponse;
 import com.example.testbbl.dto.response.UserResponse;
 import com.example.testbbl.exception.EmailAlreadyExistsException;
 import com.example.testbbl.exception.GlobalExceptionHandler;
@@ -122,7 +125,24 @@ class UserControllerTest {
                 .expectStatus().isBadRequest()
                 .expectBody()
                 .jsonPath("$.status").isEqualTo(400)
-                .jsonPath("$.message").isEqualTo("Validation failure");
+                .jsonPath("$.message").isEqualTo("Validation failure")
+                .jsonPath("$.errors.length()").isEqualTo(3)
+                .jsonPath("$.errors[?(@.field == 'email')].message").isEqualTo("Email is required");
+    }
+
+    @Test
+    void getUserById_whenNotFound_rendersEscapedJsonErrorBody() {
+        given(userService.getUserById(7L)).willReturn(Mono.error(new UserNotFoundException("No user \"7\"\nhere")));
+
+        webTestClient.get()
+                .uri("/users/{id}", 7)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.timestamp").exists()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("No user \"7\"\nhere");
     }
 
     @Test
@@ -156,4 +176,48 @@ class UserControllerTest {
                 .expectBody()
                 .jsonPath("$.status").isEqualTo(400);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUsersByIds_returnsUsersAndMissingIds() {
+        UserResponse user = new UserResponse(2L, "User2", "user2", "user2@example.com", null, null);
+        given(userService.getUsersByIds(List.of(2L, 5L)))
+                .willReturn(Mono.just(new UserLookupResponse(List.of(user), List.of(5L))));
+
+        webTestClient.get()
+                .uri("/users?ids=2,5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.users[0].id").isEqualTo(2)
+                .jsonPath("$.data.missingIds[0]").isEqualTo(5)
+                .jsonPath("$.pagination").doesNotExist();
+    }
+
+    @Test
+    void lookupUsers_withNdjsonAccept_streamsOneEntryPerId() {
+        UserResponse user = new UserResponse(2L, "User2", "user2", "user2@example.com", null, null);
+        given(userService.streamUsersByIds(List.of(2L, 5L)))
+                .willReturn(Flux.just(UserLookupEntry.found(user), UserLookupEntry.missing(5L)));
+
+        webTestClient.post()
+                .uri("/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(new UserLookupRequest(List.of(2L, 5L)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(UserLookupEntry.class)
+                .contains(UserLookupEntry.found(user), UserLookupEntry.missing(5L));
+    }
+
+    @Test
+    void lookupUsers_withoutIds_returns400() {
+        webTestClient.post()
+                .uri("/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserLookupRequest(List.of()))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.testbbl.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ErrorBodiesTest {
+
+    private final ErrorBodies notFound = new ErrorBodies(HttpStatus.NOT_FOUND);
+
+    @Test
+    void render_sharedHeaderValuesCannotBeMutated() {
+        ResponseEntity<byte[]> first = notFound.render("first");
+        List<String> contentType = first.getHeaders().get(HttpHeaders.CONTENT_TYPE);
+
+        assertThrows(UnsupportedOperationException.class, () -> contentType.add("text/plain"));
+        assertEquals(MediaType.APPLICATION_JSON, notFound.render("second").getHeaders().getContentType());
+        assertEquals(1, notFound.render("third").getHeaders().get(HttpHeaders.CONTENT_TYPE).size());
+    }
+
+    @Test
+    void escape_quotesControlCharactersAndBackslashes() {
+        assertEquals("a\\\"b\\\\c\\n\\u0001", ErrorBodies.escape("a\"b\\c\n\u0001"));
+        assertEquals("plain", ErrorBodies.escape("plain"));
+    }
+}
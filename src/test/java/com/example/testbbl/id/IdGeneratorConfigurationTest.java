@@ -0,0 +1,41 @@
+package com.example.testbbl.id;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdGeneratorConfigurationTest {
+
+    private final IdGeneratorConfiguration configuration = new IdGeneratorConfiguration();
+
+    @Test
+    void defaultsToDatabaseIds() {
+        assertInstanceOf(DatabaseIdGenerator.class, configuration.idGenerator(new IdGeneratorProperties()));
+    }
+
+    @Test
+    void snowflake_withoutNodeId_refusesToStart() {
+        IdGeneratorProperties properties = new IdGeneratorProperties();
+        properties.setStrategy(IdGeneratorProperties.Strategy.SNOWFLAKE);
+
+        assertThrows(IllegalStateException.class, () -> configuration.idGenerator(properties));
+    }
+
+    @Test
+    void snowflake_withNodeId_createsGenerator() {
+        IdGeneratorProperties properties = new IdGeneratorProperties();
+        properties.setStrategy(IdGeneratorProperties.Strategy.SNOWFLAKE);
+        properties.setNodeId(7L);
+
+        assertInstanceOf(SnowflakeIdGenerator.class, configuration.idGenerator(properties));
+    }
+
+    @Test
+    void database_doesNotNeedNodeId() {
+        IdGeneratorProperties properties = new IdGeneratorProperties();
+        properties.setStrategy(IdGeneratorProperties.Strategy.DATABASE);
+
+        assertInstanceOf(DatabaseIdGenerator.class, configuration.idGenerator(properties));
+    }
+}
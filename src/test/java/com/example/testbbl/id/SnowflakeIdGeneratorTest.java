@@ -0,0 +1,92 @@
+package com.example.testbbl.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+    // Number.MAX_SAFE_INTEGER in JavaScript
+    private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+    @Test
+    void ids_areIncreasingAndCarryTheNodeId() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(21, EPOCH);
+
+        long previous = generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.next();
+            assertTrue(id > previous);
+            assertEquals(21, SnowflakeIdGenerator.nodeOf(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void ids_stayUniqueUnderConcurrencyWithinOneMillisecond() {
+        Clock frozen = Clock.fixed(EPOCH.plusSeconds(60), ZoneOffset.UTC);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, EPOCH, frozen);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 200_000).parallel().forEach(i -> ids.add(generator.next()));
+
+        assertEquals(200_000, ids.size());
+    }
+
+    @Test
+    void ids_keepIncreasingWhenTheClockMovesBackwards() {
+        long[] now = {EPOCH.toEpochMilli() + 10_000};
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now[0]);
+            }
+        };
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, EPOCH, clock);
+
+        long before = generator.next();
+        now[0] -= 5_000;
+
+        assertTrue(generator.next() > before);
+    }
+
+    @Test
+    void ids_fitInTheIntegersADoubleRepresentsExactly_untilTheTimestampRunsOut() {
+        long lastMillisecond = (1L << SnowflakeIdGenerator.TIMESTAMP_BITS) - 1;
+        Clock end = Clock.fixed(EPOCH.plusMillis(lastMillisecond), ZoneOffset.UTC);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID, EPOCH, end);
+
+        for (int i = 0; i < 1 << SnowflakeIdGenerator.SEQUENCE_BITS; i++) {
+            long id = generator.next();
+            assertTrue(id <= MAX_SAFE_INTEGER, "id " + id + " exceeds 2^53 - 1");
+            assertEquals(id, (long) (double) id);
+        }
+    }
+
+    @Test
+    void constructor_rejectsNodeIdsThatDoNotFit() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(32, EPOCH));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, EPOCH));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class UserImportIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void importUsers_multipartCsv_insertsValidRowsAndReportsTheRest() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        String csv = String.join("\n",
+                "name,username,email",
+                "Imported,imported,imported-" + run + "@example.com",
+                "Invalid,invalid,not-an-email",
+                "Variant,variant,IMPORTED-" + run + "@Example.com");
+
+        webTestClient.post()
+                .uri("/admin/users/import")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(multipart("users.csv", csv)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.rows").isEqualTo(3)
+                .jsonPath("$.data.accepted").isEqualTo(2)
+                .jsonPath("$.data.rejected").isEqualTo(1)
+                .jsonPath("$.data.inserted").isEqualTo(1)
+                .jsonPath("$.data.duplicates").isEqualTo(1)
+                .jsonPath("$.data.rejections[0].line").isEqualTo(3);
+
+        StepVerifier.create(userRepository.existsByEmailIgnoreCase("imported-" + run + "@example.com"))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void importUsers_withUnknownFormat_returns400() {
+        webTestClient.post()
+                .uri("/admin/users/import?format=xml")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(multipart("users.xml", "<users/>")))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400);
+    }
+
+    private static MultiValueMap<String, HttpEntity<?>> multipart(String filename, String content) {
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("file", content.getBytes(StandardCharsets.UTF_8))
+                .filename(filename)
+                .contentType(MediaType.TEXT_PLAIN);
+        return builder.build();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.dto.response.ImportRejection;
+import com.example.testbbl.dto.response.UserImportResponse;
+import com.example.testbbl.id.DatabaseIdGenerator;
+import com.example.testbbl.id.SnowflakeIdGenerator;
+import com.example.testbbl.mapper.UserMapper;
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.TestUserRepositories;
+import com.example.testbbl.repository.UserBatchStatements;
+import com.example.testbbl.repository.UserRepository;
+import com.example.testbbl.service.EmailExistenceFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1, Instant.parse("2024-01-01T00:00:00Z"));
+
+    private ConnectionFactory connectionFactory;
+    private DatabaseClient database;
+    private EmailExistenceFilter emailExistenceFilter;
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = TestUserRepositories.migratedH2();
+        database = DatabaseClient.create(connectionFactory);
+        // drop the sample user seeded by the migrations
+        database.sql("DELETE FROM users").then().block();
+        emailExistenceFilter = mock(EmailExistenceFilter.class);
+        service = new UserImportService(mock(UserRepository.class), database, connectionFactory,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                Mappers.getMapper(UserMapper.class), idGenerator, emailExistenceFilter);
+    }
+
+    @Test
+    void batchInsertLoader_skipsCaseVariantsWithinAndAcrossBatchesAndExistingRows() {
+        insertExisting("Existing@Example.com");
+        BatchInsertLoader loader = new BatchInsertLoader(database);
+
+        Flux<List<User>> batches = Flux.just(
+                List.of(user("a@example.com"), user("A@EXAMPLE.com"), user("existing@example.COM")),
+                List.of(user("a@Example.com"), user("b@example.com")));
+
+        StepVerifier.create(loader.load(batches))
+                .expectNext(2L)
+                .verifyComplete();
+        assertEquals(List.of("Existing@Example.com", "a@example.com", "b@example.com"), storedEmails());
+    }
+
+    @Test
+    void importLines_batchesLargeInput_andSkipsDuplicatesAcrossBatchesAndExistingRows() {
+        insertExisting("Taken@Example.com");
+        List<String> lines = new ArrayList<>();
+        lines.add("name,username,email");
+        IntStream.range(0, 12_000).forEach(i -> lines.add("User " + i + ",user" + i + ",user" + i + "@example.com"));
+        // the first batch holds 5000 rows; these repeat an earlier row or an existing user in another case
+        lines.add("Again,again,USER1@Example.com");
+        lines.add("Taken,taken,taken@example.com");
+
+        StepVerifier.create(service.importLines(Flux.fromIterable(lines), UserImportFormat.CSV))
+                .assertNext(result -> {
+                    assertEquals(12_002, result.getRows());
+                    assertEquals(12_002, result.getAccepted());
+                    assertEquals(0, result.getRejected());
+                    assertEquals(12_000, result.getInserted());
+                    assertEquals(2, result.getDuplicates());
+                })
+                .verifyComplete();
+        StepVerifier.create(database.sql("SELECT COUNT(*) FROM users").map(row -> row.get(0, Long.class)).one())
+                .expectNext(12_001L)
+                .verifyComplete();
+        verify(emailExistenceFilter, times(12_002)).add(anyString());
+    }
+
+    @Test
+    void importLines_countsAndReportsRejectedLines() {
+        String content = String.join("\n",
+                "name,username,email,phone",
+                "Valid,valid,valid@example.com,",
+                "No Email,noemail,,",
+                "Bad Email,bademail,not-an-email,",
+                "\"Unterminated,broken,broken@example.com,",
+                "",
+                "Long Phone,longphone,phone@example.com,123456789012345678901");
+
+        UserImportResponse result = service.importLines(Flux.fromArray(content.split("\n")), UserImportFormat.CSV).block();
+
+        assertEquals(5, result.getRows());
+        assertEquals(1, result.getAccepted());
+        assertEquals(4, result.getRejected());
+        assertEquals(1, result.getInserted());
+        assertEquals(0, result.getDuplicates());
+        assertEquals(List.of(3L, 4L, 5L, 7L), result.getRejections().stream().map(ImportRejection::line).toList());
+        assertTrue(result.getRejections().get(0).reason().contains("email"));
+        assertEquals(List.of("valid@example.com"), storedEmails());
+    }
+
+    @Test
+    void importLines_withDatabaseIds_letsTheIdentityColumnAssignThem() {
+        UserImportService databaseIds = new UserImportService(mock(UserRepository.class), database, connectionFactory,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                Mappers.getMapper(UserMapper.class), new DatabaseIdGenerator(), emailExistenceFilter);
+
+        StepVerifier.create(databaseIds.importLines(Flux.just("name,username,email", "One,one,one@example.com",
+                        "Two,two,two@example.com"), UserImportFormat.CSV).map(UserImportResponse::getInserted))
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(database.sql("SELECT COUNT(DISTINCT id) FROM users").map(row -> row.get(0, Long.class)).one())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void repositoryLoader_insertsOnlyEmailsTheRepositoryDoesNotKnow() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsByEmailIgnoreCase(anyString()))
+                .thenAnswer(invocation -> Mono.just(invocation.<String>getArgument(0).equalsIgnoreCase("taken@example.com")));
+        when(userRepository.insertAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.<List<User>>getArgument(0)));
+        RepositoryLoader loader = new RepositoryLoader(userRepository);
+
+        StepVerifier.create(loader.load(Flux.just(
+                        List.of(user("new@example.com"), user("NEW@example.com"), user("Taken@Example.com")),
+                        List.of(user("other@example.com")))))
+                .expectNext(2L)
+                .verifyComplete();
+        verify(userRepository).insertAll(argThat(users -> users.size() == 1 && users.get(0).getEmail().equals("new@example.com")));
+        verify(userRepository).insertAll(argThat(users -> users.size() == 1 && users.get(0).getEmail().equals("other@example.com")));
+    }
+
+    private User user(String email) {
+        return new User(idGenerator.nextId(), "Name", "username", email, null, null);
+    }
+
+    private void insertExisting(String email) {
+        UserBatchStatements.insertAll(database, List.of(user(email))).blockLast();
+    }
+
+    private List<String> storedEmails() {
+        return database.sql("SELECT email FROM users ORDER BY email")
+                .map(row -> row.get("email", String.class))
+                .all()
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.testbbl.importer;
+
+import com.example.testbbl.dto.request.CreateUserRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserRecordParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csv_mapsColumnsByHeaderAndHandlesQuotes() {
+        UserRecordParser parser = new UserRecordParser(UserImportFormat.CSV, objectMapper);
+
+        assertNull(parser.parse(1, "\uFEFFemail,Name,username,website\r"));
+        ParsedRecord record = parser.parse(2, "a@example.com,\"Doe, \"\"JD\"\" John\",jdoe,\r");
+
+        assertNull(record.error());
+        assertEquals(new CreateUserRequest("Doe, \"JD\" John", "jdoe", "a@example.com", null, null), record.request());
+    }
+
+    @Test
+    void csv_reportsUnterminatedQuotes() {
+        UserRecordParser parser = new UserRecordParser(UserImportFormat.CSV, objectMapper);
+        parser.parse(1, "name,username,email");
+
+        ParsedRecord record = parser.parse(2, "\"broken,user,b@example.com");
+
+        assertEquals(2, record.line());
+        assertNotNull(record.error());
+    }
+
+    @Test
+    void ndjson_parsesEachLineAndSkipsBlankOnes() {
+        UserRecordParser parser = new UserRecordParser(UserImportFormat.NDJSON, objectMapper);
+
+        assertNull(parser.parse(1, "   "));
+        assertEquals(new CreateUserRequest("Name", "username", "c@example.com", "123", null),
+                parser.parse(2, "{\"name\":\"Name\",\"username\":\"username\",\"email\":\"c@example.com\",\"phone\":\"123\"}").request());
+        assertNotNull(parser.parse(3, "{\"name\":").error());
+    }
+
+    @Test
+    void splitCsv_keepsEmptyTrailingColumns() {
+        assertEquals(List.of("a", "", "b", ""), UserRecordParser.splitCsv("a,,b,"));
+    }
+
+    @Test
+    void resolveFormat_prefersExplicitFormatOverExtension() {
+        assertEquals(UserImportFormat.NDJSON, UserImportFormat.resolve(null, "users.jsonl"));
+        assertEquals(UserImportFormat.CSV, UserImportFormat.resolve("csv", "users.ndjson"));
+        assertEquals(UserImportFormat.CSV, UserImportFormat.resolve("", "users.txt"));
+        assertThrows(IllegalArgumentException.class, () -> UserImportFormat.resolve("xml", "users.csv"));
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.testbbl.instrumentation;
+
+import com.example.testbbl.dto.request.CreateUserRequest;
+import com.example.testbbl.dto.request.UserLookupRequest;
+import com.example.testbbl.id.IdGenerator;
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fails when an endpoint issues more statements, or reads more rows, than its budget allows.
+ * Streamed endpoints commit their headers early, so they are checked against the per-route summaries.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class QueryBudgetTest {
+
+    private static final String ROUND_TRIPS = "X-DB-Round-Trips";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    private List<User> seeded;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        seeded = Flux.fromStream(IntStream.range(0, 5)
+                        .mapToObj(i -> new User(idGenerator.nextId(), "Budget " + i, "budget" + i, "budget" + i + "-" + run + "@example.com", null, null)))
+                .concatMap(userRepository::insert)
+                .collectList()
+                .block();
+    }
+
+    @Test
+    void instrumentation_keepsThePoolAsTheConnectionFactoryBean() {
+        // the proxy sits underneath the pool, which must stay the bean so it is disposed on shutdown
+        assertInstanceOf(ConnectionPool.class, connectionFactory);
+    }
+
+    @Test
+    void getUserById_isOneStatement() {
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/users/{id}", seeded.get(0).getId())
+                .exchange()
+                .expectStatus().isOk();
+
+        assertBudget(response, 1, 1);
+    }
+
+    @Test
+    void getUserById_whenMissing_isOneStatement() {
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/users/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        assertBudget(response, 1, 0);
+    }
+
+    @Test
+    void getUsersPage_countsAndReadsOnlyThePage() {
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/users?page=1&size=2")
+                .exchange()
+                .expectStatus().isOk();
+
+        // one row for the count, then the page itself
+        assertBudget(response, 2, 3);
+    }
+
+    @Test
+    void getUsersByIds_isOneStatementPerChunk() {
+        String ids = seeded.stream().map(user -> user.getId().toString()).collect(Collectors.joining(",")) + ",-1";
+
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/users?ids=" + ids)
+                .exchange()
+                .expectStatus().isOk();
+
+        assertBudget(response, 1, seeded.size());
+    }
+
+    @Test
+    void lookupUsersStreamed_isOneStatementPerChunk() throws InterruptedException {
+        List<Long> ids = Stream.concat(seeded.stream().map(User::getId), Stream.of(-1L)).toList();
+        Recorded before = recorded("/users/lookup");
+
+        webTestClient.post()
+                .uri("/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(new UserLookupRequest(ids))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class);
+
+        Recorded after = awaitRecorded("/users/lookup", before.requests() + 1);
+        checkBudget((int) (after.statements() - before.statements()), (int) (after.rows() - before.rows()), 1, seeded.size());
+    }
+
+    @Test
+    void createUser_isAtMostAnExistenceCheckAndAnInsert() {
+        CreateUserRequest request = new CreateUserRequest("New", "newuser",
+                "new-" + UUID.randomUUID() + "@example.com", null, null);
+
+        WebTestClient.ResponseSpec response = webTestClient.post()
+                .uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated();
+
+        assertBudget(response, 2, 2);
+    }
+
+    private static void assertBudget(WebTestClient.ResponseSpec response, int maxStatements, int maxRows) {
+        response.expectHeader().value(ROUND_TRIPS, value -> checkStatements(Integer.parseInt(value), maxStatements));
+        response.expectHeader().value(RequestQueryCountingFilter.ROWS_HEADER, value -> checkRows(Integer.parseInt(value), maxRows));
+    }
+
+    private static void checkBudget(int statements, int rows, int maxStatements, int maxRows) {
+        checkStatements(statements, maxStatements);
+        checkRows(rows, maxRows);
+    }
+
+    private static void checkStatements(int statements, int maxStatements) {
+        assertTrue(statements >= 1, "No statements were recorded for the request");
+        assertTrue(statements <= maxStatements,
+                "Expected at most " + maxStatements + " statements but the request made " + statements);
+    }
+
+    private static void checkRows(int rows, int maxRows) {
+        assertTrue(rows <= maxRows, "Expected at most " + maxRows + " rows but the request read " + rows);
+    }
+
+    private record Recorded(long requests, double statements, double rows) {
+    }
+
+    private Recorded recorded(String route) {
+        DistributionSummary statements = meterRegistry.find(RequestQueryCountingFilter.ROUND_TRIPS_METRIC).tag("uri", route).summary();
+        DistributionSummary rows = meterRegistry.find(RequestQueryCountingFilter.ROWS_METRIC).tag("uri", route).summary();
+        return statements == null || rows == null
+                ? new Recorded(0, 0, 0)
+                : new Recorded(rows.count(), statements.totalAmount(), rows.totalAmount());
+    }
+
+    // the summaries are recorded once the server has finished the exchange, which can trail the client
+    private Recorded awaitRecorded(String route, long requests) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && recorded(route).requests() < requests; attempt++) {
+            Thread.sleep(20);
+        }
+        Recorded recorded = recorded(route);
+        assertTrue(recorded.requests() >= requests, "No query summary was recorded for " + route);
+        return recorded;
+    }
+}
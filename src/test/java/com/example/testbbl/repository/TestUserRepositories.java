@@ -0,0 +1,47 @@
+package com.example.testbbl.repository;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.flywaydb.core.Flyway;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.data.repository.core.support.RepositoryFragment;
+
+import java.util.UUID;
+
+/**
+ * Builds the real {@link UserRepository}, including its custom fragment, over a plain connection
+ * factory, for tests that need a database but no application context.
+ */
+public final class TestUserRepositories {
+
+    private TestUserRepositories() {
+    }
+
+    public static UserRepository create(ConnectionFactory connectionFactory) {
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(connectionFactory);
+        return new R2dbcRepositoryFactory(template).getRepository(UserRepository.class, RepositoryFragments.of(
+                RepositoryFragment.implemented(UserRepositoryCustom.class, new UserRepositoryCustomImpl(template))));
+    }
+
+    /**
+     * A fresh in-memory H2 database with the Flyway migrations applied, including the seeded
+     * sample user.
+     */
+    public static ConnectionFactory migratedH2() {
+        String name = "test_" + UUID.randomUUID().toString().substring(0, 8);
+        Flyway.configure()
+                .dataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;", "sa", "")
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        return ConnectionFactories.get(ConnectionFactoryOptions
+                .parse("r2dbc:h2:mem:///" + name + ";DB_CLOSE_DELAY=-1;")
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, "sa")
+                .option(ConnectionFactoryOptions.PASSWORD, "")
+                .build());
+    }
+}
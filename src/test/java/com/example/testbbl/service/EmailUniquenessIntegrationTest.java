@@ -0,0 +1,61 @@
+package com.example.testbbl.service;
+
+import com.example.testbbl.dto.request.CreateUserRequest;
+import com.example.testbbl.id.IdGenerator;
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class EmailUniquenessIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @Test
+    void createUser_withCaseVariantOfEmailCreatedOnAnotherNode_returns409() throws InterruptedException {
+        awaitFilterReady();
+        String email = "Alice-" + UUID.randomUUID() + "@Example.com";
+        String variant = email.toLowerCase(Locale.ROOT);
+        // written behind this node's back, as another instance would, so the filter rules the email out
+        userRepository.insert(new User(idGenerator.nextId(), "Alice", "alice", email, null, null)).block();
+        assertFalse(emailExistenceFilter.mightContain(variant));
+
+        webTestClient.post()
+                .uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateUserRequest("Alice", "alice2", variant, null, null))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(409);
+    }
+
+    private void awaitFilterReady() throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && !emailExistenceFilter.isReady(); attempt++) {
+            Thread.sleep(50);
+        }
+        assertTrue(emailExistenceFilter.isReady(), "Email existence filter did not finish loading");
+    }
+}
@@ -1,20 +1,31 @@
 package com.example.testbbl.service;
 
 import com.example.testbbl.dto.request.CreateUserRequest;
+import com.example.testbbl.dto.request.UpdateUserRequest;
+import com.example.testbbl.dto.response.UserLookupEntry;
 import com.example.testbbl.dto.response.UserResponse;
 import com.example.testbbl.exception.EmailAlreadyExistsException;
 import com.example.testbbl.exception.UserNotFoundException;
+import com.example.testbbl.id.IdGenerator;
 import com.example.testbbl.mapper.UserMapper;
 import com.example.testbbl.model.User;
 import com.example.testbbl.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -26,12 +37,24 @@ class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private IdGenerator idGenerator;
+
+    @Mock
+    private UserUpdateBuffer userUpdateBuffer;
+
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
     @InjectMocks
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(userUpdateBuffer.overlay(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userUpdateBuffer.drain(any())).thenReturn(Mono.empty());
+        when(emailExistenceFilter.mightContain(anyString())).thenReturn(true);
     }
 
     @Test
@@ -64,6 +87,53 @@ class UserServiceTest {
         verifyNoInteractions(userMapper);
     }
 
+    @Test
+    void getAllUsers_appliesBufferedChanges() {
+        User stored = new User(1L, "Name", "username", "email@example.com", null, null);
+        User buffered = new User(1L, "Buffered", "username", "email@example.com", null, null);
+        UserResponse response = new UserResponse(1L, "Buffered", "username", "email@example.com", null, null);
+
+        when(userRepository.findAllBy(any(Pageable.class))).thenReturn(Flux.just(stored));
+        when(userUpdateBuffer.overlay(stored)).thenReturn(buffered);
+        when(userMapper.toResponse(buffered)).thenReturn(response);
+
+        StepVerifier.create(userService.getAllUsers(0, 10))
+                .expectNext(response)
+                .verifyComplete();
+    }
+
+    @Test
+    void getUsersByIds_keepsRequestOrder_andReportsMissingIds() {
+        User first = new User(3L, "Third", "third", "third@example.com", null, null);
+        User second = new User(1L, "First", "first", "first@example.com", null, null);
+        UserResponse firstResponse = new UserResponse(3L, "Third", "third", "third@example.com", null, null);
+        UserResponse secondResponse = new UserResponse(1L, "First", "first", "first@example.com", null, null);
+
+        when(userRepository.findAllById(List.of(3L, 7L, 1L))).thenReturn(Flux.just(second, first));
+        when(userMapper.toResponse(first)).thenReturn(firstResponse);
+        when(userMapper.toResponse(second)).thenReturn(secondResponse);
+
+        StepVerifier.create(userService.getUsersByIds(List.of(3L, 7L, 1L, 3L)))
+                .assertNext(result -> {
+                    assertEquals(List.of(firstResponse, secondResponse), result.getUsers());
+                    assertEquals(List.of(7L), result.getMissingIds());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void streamUsersByIds_queriesInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, UserService.LOOKUP_CHUNK_SIZE + 1).boxed().toList();
+        when(userRepository.findAllById(anyIterable())).thenReturn(Flux.empty());
+
+        StepVerifier.create(userService.streamUsersByIds(ids).map(UserLookupEntry::id))
+                .expectNextSequence(ids)
+                .verifyComplete();
+
+        verify(userRepository).findAllById(ids.subList(0, UserService.LOOKUP_CHUNK_SIZE));
+        verify(userRepository).findAllById(List.of((long) UserService.LOOKUP_CHUNK_SIZE + 1));
+    }
+
     @Test
     void createUser_whenEmailExists_errorsWithConflict() {
         CreateUserRequest input = new CreateUserRequest("Name", "username", "exists@example.com", null, null);
@@ -89,7 +159,8 @@ class UserServiceTest {
 
         when(userRepository.existsByEmailIgnoreCase("new@example.com")).thenReturn(Mono.just(false));
         when(userMapper.toEntity(input)).thenReturn(toSave);
-        when(userRepository.save(toSave)).thenReturn(Mono.just(saved));
+        when(idGenerator.nextId()).thenReturn(10L);
+        when(userRepository.insert(toSave)).thenReturn(Mono.just(saved));
         when(userMapper.toResponse(saved)).thenReturn(output);
 
         StepVerifier.create(userService.createUser(input))
@@ -98,10 +169,89 @@ class UserServiceTest {
 
         verify(userRepository).existsByEmailIgnoreCase("new@example.com");
         verify(userMapper).toEntity(input);
-        verify(userRepository).save(toSave);
+        verify(userRepository).insert(argThat((User user) -> Long.valueOf(10L).equals(user.getId())));
         verify(userMapper).toResponse(saved);
     }
 
+    @Test
+    void createUser_whenEmailIndexIsViolated_errorsWithConflict() {
+        CreateUserRequest input = new CreateUserRequest("Name", "username", "race@example.com", null, null);
+        User toSave = new User(null, "Name", "username", "race@example.com", null, null);
+
+        when(userRepository.existsByEmailIgnoreCase("race@example.com")).thenReturn(Mono.just(false));
+        when(userMapper.toEntity(input)).thenReturn(toSave);
+        when(idGenerator.nextId()).thenReturn(12L);
+        when(userRepository.insert(toSave)).thenReturn(Mono.error(new DuplicateKeyException(
+                "Unique index or primary key violation: \"PUBLIC.UX_USERS_EMAIL ON PUBLIC.USERS(EMAIL)\"")));
+
+        StepVerifier.create(userService.createUser(input))
+                .expectError(EmailAlreadyExistsException.class)
+                .verify();
+    }
+
+    @Test
+    void createUser_whenIdCollides_isNotReportedAsEmailConflict() {
+        CreateUserRequest input = new CreateUserRequest("Name", "username", "other@example.com", null, null);
+        User toSave = new User(null, "Name", "username", "other@example.com", null, null);
+
+        when(userRepository.existsByEmailIgnoreCase("other@example.com")).thenReturn(Mono.just(false));
+        when(userMapper.toEntity(input)).thenReturn(toSave);
+        when(idGenerator.nextId()).thenReturn(13L);
+        when(userRepository.insert(toSave)).thenReturn(Mono.error(new DuplicateKeyException(
+                "Unique index or primary key violation: \"PRIMARY KEY ON PUBLIC.USERS(ID)\"")));
+
+        StepVerifier.create(userService.createUser(input))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+    }
+
+    @Test
+    void createUser_whenFilterRulesOutEmail_skipsExistenceQuery() {
+        CreateUserRequest input = new CreateUserRequest("Name", "username", "fresh@example.com", null, null);
+        User toSave = new User(null, "Name", "username", "fresh@example.com", null, null);
+        User saved = new User(11L, "Name", "username", "fresh@example.com", null, null);
+        UserResponse output = new UserResponse(11L, "Name", "username", "fresh@example.com", null, null);
+
+        when(emailExistenceFilter.mightContain("fresh@example.com")).thenReturn(false);
+        when(userMapper.toEntity(input)).thenReturn(toSave);
+        when(idGenerator.nextId()).thenReturn(11L);
+        when(userRepository.insert(toSave)).thenReturn(Mono.just(saved));
+        when(userMapper.toResponse(saved)).thenReturn(output);
+
+        StepVerifier.create(userService.createUser(input))
+                .expectNext(output)
+                .verifyComplete();
+
+        verify(userRepository, never()).existsByEmailIgnoreCase(anyString());
+        verify(emailExistenceFilter).add("fresh@example.com");
+    }
+
+    @Test
+    void updateUser_whenNotBuffered_patchesBufferedAndRequestedFields_andReturnsTheStoredRow() {
+        User existing = new User(1L, "Name", "username", "email@example.com", "000", null);
+        User stored = new User(1L, "Name", "username", "email@example.com", "111", "site");
+        UpdateUserRequest request = new UpdateUserRequest(null, null, null, "111", null);
+        UserMapper mapper = Mappers.getMapper(UserMapper.class);
+
+        when(userRepository.findById(1L)).thenReturn(Mono.just(existing), Mono.just(stored));
+        when(userUpdateBuffer.offer(1L, request)).thenReturn(false);
+        when(userUpdateBuffer.drain(1L)).thenReturn(Mono.just(new UpdateUserRequest(null, null, null, null, "site")));
+        doAnswer(invocation -> {
+            mapper.updateEntityFromRequest(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(userMapper).updateEntityFromRequest(any(), any());
+        when(userRepository.patch(any())).thenReturn(Mono.just(1L));
+        when(userMapper.toResponse(stored)).thenReturn(new UserResponse(1L, "Name", "username", "email@example.com", "111", "site"));
+
+        StepVerifier.create(userService.updateUser(1L, request))
+                .expectNext(new UserResponse(1L, "Name", "username", "email@example.com", "111", "site"))
+                .verifyComplete();
+
+        // only the changed columns are written; the rest keep whatever the row holds by then
+        verify(userRepository).patch(new User(1L, null, null, null, "111", "site"));
+        verify(userRepository, never()).update(any());
+    }
+
     @Test
     void deleteUser_whenExists_deletes() {
         when(userRepository.existsById(1L)).thenReturn(Mono.just(true));
@@ -0,0 +1,178 @@
+package com.example.testbbl.service;
+
+import com.example.testbbl.dto.request.UpdateUserRequest;
+import com.example.testbbl.id.IdGenerator;
+import com.example.testbbl.mapper.UserMapper;
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.UserBatchStatements;
+import com.example.testbbl.repository.TestUserRepositories;
+import com.example.testbbl.repository.UserRepository;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserUpdateBufferTest {
+
+    private UserRepository userRepository;
+    private WriteBehindProperties properties;
+    private UserUpdateBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        properties = new WriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setMaxPendingUsers(2);
+        buffer = new UserUpdateBuffer(userRepository, Mappers.getMapper(UserMapper.class), properties);
+    }
+
+    @Test
+    void offer_mergesFieldsLastWriterWins_andOverlaysReads() {
+        buffer.offer(1L, new UpdateUserRequest("First", null, null, "111", null));
+        buffer.offer(1L, new UpdateUserRequest("Second", "renamed", null, null, null));
+
+        User user = buffer.overlay(new User(1L, "Name", "username", "a@example.com", "000", "site"));
+
+        assertEquals(new User(1L, "Second", "renamed", "a@example.com", "111", "site"), user);
+        assertEquals(1, buffer.pendingCount());
+    }
+
+    @Test
+    void flush_writesOneBatchedUpdateForAllPendingUsers() {
+        buffer.offer(1L, new UpdateUserRequest("One", null, null, null, null));
+        buffer.offer(1L, new UpdateUserRequest(null, null, null, "111", null));
+        buffer.offer(2L, new UpdateUserRequest("Two", null, null, null, null));
+        when(userRepository.patchAll(anyList())).thenAnswer(invocation -> Mono.just((long) invocation.<List<User>>getArgument(0).size()));
+
+        StepVerifier.create(buffer.flush())
+                .expectNext(2L)
+                .verifyComplete();
+
+        // patches carry only the buffered fields; the row is never read first
+        verify(userRepository, times(1)).patchAll(argThat((List<User> patches) -> patches.size() == 2 && patches.containsAll(List.of(
+                new User(1L, "One", null, null, "111", null),
+                new User(2L, "Two", null, null, null, null)))));
+        verify(userRepository, never()).findAllById(anyIterable());
+        assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    void flush_whenWriteFails_requeuesUnderNewerChanges() {
+        buffer.offer(1L, new UpdateUserRequest("Old", null, null, "111", null));
+        when(userRepository.patchAll(anyList())).thenAnswer(invocation -> {
+            buffer.offer(1L, new UpdateUserRequest("New", null, null, null, null));
+            return Mono.error(new IllegalStateException("database down"));
+        });
+
+        StepVerifier.create(buffer.flush())
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        User user = buffer.overlay(new User(1L, "Name", "user1", "one@example.com", null, null));
+        assertEquals("New", user.getName());
+        assertEquals("111", user.getPhone());
+    }
+
+    @Test
+    void flush_whenEmailChangeLandsWhileBatchIsInFlight_keepsTheNewEmailAndOtherColumns() {
+        DatabaseClient database = DatabaseClient.create(TestUserRepositories.migratedH2());
+        buffer.offer(1L, new UpdateUserRequest("Buffered", null, null, null, null));
+        // a synchronous email change and another node's phone change commit between batching and the write
+        when(userRepository.patchAll(anyList())).thenAnswer(invocation -> database
+                .sql("UPDATE users SET email = 'moved@example.com', phone = '555' WHERE id = 1")
+                .then()
+                .then(UserBatchStatements.patchAll(database, invocation.getArgument(0))));
+
+        StepVerifier.create(buffer.flush())
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(database.sql("SELECT name, email, phone FROM users WHERE id = 1")
+                        .map(row -> List.of(row.get("name", String.class), row.get("email", String.class), row.get("phone", String.class)))
+                        .one())
+                .expectNext(List.of("Buffered", "moved@example.com", "555"))
+                .verifyComplete();
+    }
+
+    @Test
+    void drain_waitsForTheInFlightBatch_andTakesOnlyChangesItDidNotCommit() {
+        Sinks.One<Long> write = Sinks.one();
+        buffer.offer(1L, new UpdateUserRequest("Flushing", null, null, null, null));
+        when(userRepository.patchAll(anyList())).thenReturn(write.asMono());
+        buffer.flush().subscribe();
+        buffer.offer(1L, new UpdateUserRequest(null, null, null, "111", null));
+
+        StepVerifier.create(buffer.drain(1L))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> write.tryEmitValue(1L))
+                .expectNext(new UpdateUserRequest(null, null, null, "111", null))
+                .verifyComplete();
+        assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    void drain_whenTheInFlightBatchFails_takesItsChangesUnderTheNewerOnes() {
+        Sinks.One<Long> write = Sinks.one();
+        buffer.offer(1L, new UpdateUserRequest("Flushing", null, null, "000", null));
+        when(userRepository.patchAll(anyList())).thenReturn(write.asMono());
+        buffer.flush().onErrorResume(err -> Mono.empty()).subscribe();
+        buffer.offer(1L, new UpdateUserRequest(null, null, null, "111", null));
+
+        StepVerifier.create(buffer.drain(1L))
+                .expectSubscription()
+                .then(() -> write.tryEmitError(new IllegalStateException("database down")))
+                .expectNext(new UpdateUserRequest("Flushing", null, null, "111", null))
+                .verifyComplete();
+        assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    void updateUser_whenABatchCommitsAfterTheRowWasRead_keepsTheBatchedChanges() {
+        ConnectionFactory connectionFactory = TestUserRepositories.migratedH2();
+        UserRepository stored = TestUserRepositories.create(connectionFactory);
+        stored.insert(new User(10L, "Name", "user10", "ten@example.com", "000", null)).block();
+        UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+        UserRepository repository = mock(UserRepository.class, delegatesTo(stored));
+        UserUpdateBuffer writeBehind = new UserUpdateBuffer(repository, userMapper, properties);
+        UserService service = new UserService(repository, userMapper, mock(IdGenerator.class), writeBehind,
+                mock(EmailExistenceFilter.class));
+        writeBehind.offer(10L, new UpdateUserRequest("Buffered", null, null, null, null));
+        // the buffered rename is flushed right after the update has read the row
+        doAnswer(invocation -> stored.findById(10L).flatMap(user -> writeBehind.flush().thenReturn(user)))
+                .when(repository).findById(10L);
+
+        StepVerifier.create(service.updateUser(10L, new UpdateUserRequest(null, null, "new@example.com", null, null)))
+                .assertNext(response -> assertEquals(List.of("Buffered", "new@example.com", "000"),
+                        List.of(response.getName(), response.getEmail(), response.getPhone())))
+                .verifyComplete();
+        StepVerifier.create(stored.findById(10L))
+                .expectNext(new User(10L, "Buffered", "user10", "new@example.com", "000", null))
+                .verifyComplete();
+    }
+
+    @Test
+    void offer_rejectsEmailChangesAndNewUsersWhenFull() {
+        assertFalse(buffer.offer(1L, new UpdateUserRequest(null, null, "new@example.com", null, null)));
+
+        buffer.offer(1L, new UpdateUserRequest("One", null, null, null, null));
+        buffer.offer(2L, new UpdateUserRequest("Two", null, null, null, null));
+
+        assertFalse(buffer.offer(3L, new UpdateUserRequest("Three", null, null, null, null)));
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.testbbl.sharding;
+
+import com.example.testbbl.exception.EmailAlreadyExistsException;
+import com.example.testbbl.id.SnowflakeIdGenerator;
+import com.example.testbbl.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedUserRepositoryTest {
+
+    private static final List<String> MIGRATIONS = List.of("classpath:db/shard");
+
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1, Instant.parse("2024-01-01T00:00:00Z"));
+
+    private List<ShardingProperties.Shard> config;
+    private ShardedUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        config = new ArrayList<>();
+        IntStream.range(0, 2).forEach(i -> config.add(h2Shard("shard" + i + "_" + run)));
+        repository = connect(config);
+    }
+
+    @Test
+    void save_withoutId_routesById_thenReadsAndDeletes() {
+        List<User> saved = saveUsers(repository, 40);
+
+        // every shard holds exactly the ids it owns
+        for (int shard = 0; shard < 2; shard++) {
+            int index = shard;
+            long owned = saved.stream().filter(user -> repository.ownerOf(user.getId()) == index).count();
+            assertTrue(owned > 0, "shard " + shard + " received no users");
+            assertEquals(owned, countOn(repository, shard));
+        }
+        saved.forEach(user -> StepVerifier.create(repository.findById(user.getId()).map(User::getEmail))
+                .expectNext(user.getEmail())
+                .verifyComplete());
+
+        List<User> deleted = saved.subList(0, 20);
+        StepVerifier.create(Flux.fromIterable(deleted).concatMap(user -> repository.deleteById(user.getId())))
+                .verifyComplete();
+
+        StepVerifier.create(repository.count())
+                .expectNext(20L)
+                .verifyComplete();
+        deleted.forEach(user -> {
+            StepVerifier.create(repository.findById(user.getId())).verifyComplete();
+            StepVerifier.create(repository.existsByEmailIgnoreCase(user.getEmail()))
+                    .expectNext(false)
+                    .verifyComplete();
+        });
+        saved.subList(20, 40).forEach(user -> StepVerifier.create(repository
+                        .findByEmailIgnoreCase(user.getEmail().toUpperCase(Locale.ROOT))
+                        .map(User::getId))
+                .expectNext(user.getId())
+                .verifyComplete());
+    }
+
+    @Test
+    void insert_withCaseVariantOfTakenEmail_isRejected_andLeavesNoRow() {
+        StepVerifier.create(repository.save(newUser("Taken@Example.com")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(repository.save(newUser("taken@example.COM")))
+                .expectErrorMatches(EmailAlreadyExistsException::isEmailConstraintViolation)
+                .verify();
+        StepVerifier.create(repository.count())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertAll_whenOneShardFails_releasesOnlyTheClaimsOfItsUsers() {
+        List<User> users = IntStream.range(0, 20).mapToObj(i -> newUser("batch" + i + "@example.com")).toList();
+        users.forEach(user -> user.setId(idGenerator.nextId()));
+        repository.shards().get(0).template().getDatabaseClient()
+                .sql("ALTER TABLE users RENAME TO users_offline")
+                .then()
+                .block();
+
+        StepVerifier.create(repository.insertAll(users))
+                .thenConsumeWhile(user -> repository.ownerOf(user.getId()) == 1)
+                .verifyError();
+
+        users.forEach(user -> StepVerifier.create(repository.existsByEmailIgnoreCase(user.getEmail()))
+                .expectNext(repository.ownerOf(user.getId()) == 1)
+                .verifyComplete());
+        users.stream().filter(user -> repository.ownerOf(user.getId()) == 1)
+                .forEach(user -> StepVerifier.create(repository.findByEmailIgnoreCase(user.getEmail()).map(User::getId))
+                        .expectNext(user.getId())
+                        .verifyComplete());
+    }
+
+    @Test
+    void save_whenEmailChanges_movesTheDirectoryEntry() {
+        User user = repository.save(newUser("first@example.com")).block();
+        user.setEmail("second@example.com");
+
+        StepVerifier.create(repository.save(user))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(repository.existsByEmailIgnoreCase("first@example.com"))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(repository.findByEmailIgnoreCase("SECOND@example.com").map(User::getId))
+                .expectNext(user.getId())
+                .verifyComplete();
+        StepVerifier.create(repository.save(newUser("first@example.com")))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void patch_writesOnlyGivenFields_andMovesTheDirectoryEntryOnEmailChange() {
+        User user = repository.save(newUser("before@example.com")).block();
+
+        StepVerifier.create(repository.patch(new User(user.getId(), null, null, "after@example.com", "555", null)))
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(repository.findByEmailIgnoreCase("after@example.com"))
+                .expectNext(new User(user.getId(), user.getName(), user.getUsername(), "after@example.com", "555", null))
+                .verifyComplete();
+        StepVerifier.create(repository.existsByEmailIgnoreCase("before@example.com"))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void updateAndPatch_stampUpdatedAt_withoutAnOnUpdateClause() {
+        User user = repository.save(newUser("stamped@example.com")).block();
+        LocalDateTime old = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+        backdate(user, old);
+        user.setName("Updated");
+        repository.update(user).block();
+        assertTrue(updatedAtOf(user).isAfter(old));
+
+        backdate(user, old);
+        repository.patchAll(List.of(new User(user.getId(), null, null, null, "555", null))).block();
+        assertTrue(updatedAtOf(user).isAfter(old));
+        StepVerifier.create(repository.findUpdatedSince(old.plusDays(1)).map(User::getPhone))
+                .expectNext("555")
+                .verifyComplete();
+    }
+
+    @Test
+    void findAll_mergesShardsInIdOrder_andPagesAndCounts() {
+        List<Long> ids = saveUsers(repository, 10).stream().map(User::getId).sorted().toList();
+
+        StepVerifier.create(repository.findAll().map(User::getId))
+                .expectNextSequence(ids)
+                .verifyComplete();
+        StepVerifier.create(repository.findAllBy(PageRequest.of(1, 3)).map(User::getId))
+                .expectNextSequence(ids.subList(3, 6))
+                .verifyComplete();
+        // the shard limit would overflow an int
+        StepVerifier.create(repository.findAllBy(PageRequest.of(Integer.MAX_VALUE / 10, 20)))
+                .verifyComplete();
+        StepVerifier.create(repository.count())
+                .expectNext(10L)
+                .verifyComplete();
+    }
+
+    @Test
+    void rebalance_afterAddingShard_movesOnlyRowsOwnedByIt() {
+        List<User> users = saveUsers(repository, 60);
+
+        List<ShardingProperties.Shard> grown = new ArrayList<>(config);
+        grown.add(h2Shard("shard2_" + UUID.randomUUID().toString().substring(0, 8)));
+        ShardedUserRepository resized = connect(grown);
+        long expectedMoves = users.stream().filter(user -> resized.ownerOf(user.getId()) == 2).count();
+
+        StepVerifier.create(new ShardRebalancer(resized).rebalance())
+                .expectNext(expectedMoves)
+                .verifyComplete();
+        assertEquals(expectedMoves, countOn(resized, 2));
+        StepVerifier.create(resized.count())
+                .expectNext(60L)
+                .verifyComplete();
+        users.forEach(user -> {
+            StepVerifier.create(resized.findById(user.getId()).map(User::getEmail))
+                    .expectNext(user.getEmail())
+                    .verifyComplete();
+            StepVerifier.create(resized.findByEmailIgnoreCase(user.getEmail()).map(User::getId))
+                    .expectNext(user.getId())
+                    .verifyComplete();
+        });
+    }
+
+    @Test
+    void ring_addingShardMovesRoughlyItsShareOfKeys() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+        long moved = IntStream.range(0, 10_000)
+                .filter(i -> three.shardFor("key" + i) != four.shardFor("key" + i))
+                .count();
+        // every moved key must land on the new shard, and about a quarter of them move
+        IntStream.range(0, 10_000)
+                .filter(i -> three.shardFor("key" + i) != four.shardFor("key" + i))
+                .forEach(i -> assertEquals(3, four.shardFor("key" + i)));
+        assertEquals(0.25, moved / 10_000.0, 0.08);
+    }
+
+    private static List<User> saveUsers(ShardedUserRepository repository, int count) {
+        return Flux.range(0, count)
+                .concatMap(i -> repository.save(newUser("User" + i + "@Example.com")))
+                .collectList()
+                .block();
+    }
+
+    private static long countOn(ShardedUserRepository repository, int shard) {
+        return repository.shards().get(shard).template().count(Query.empty(), User.class).block();
+    }
+
+    private void backdate(User user, LocalDateTime updatedAt) {
+        ownerClient(user).sql("UPDATE users SET updated_at = :updatedAt WHERE id = :id")
+                .bind("updatedAt", updatedAt)
+                .bind("id", user.getId())
+                .then()
+                .block();
+    }
+
+    private LocalDateTime updatedAtOf(User user) {
+        return ownerClient(user).sql("SELECT updated_at FROM users WHERE id = :id")
+                .bind("id", user.getId())
+                .map(row -> row.get(0, LocalDateTime.class))
+                .one()
+                .block();
+    }
+
+    private DatabaseClient ownerClient(User user) {
+        return repository.shards().get(repository.ownerOf(user.getId())).template().getDatabaseClient();
+    }
+
+    private static User newUser(String email) {
+        return new User(null, "Name", "username", email, null, null);
+    }
+
+    private ShardedUserRepository connect(List<ShardingProperties.Shard> shards) {
+        shards.forEach(shard -> UserShard.migrate(shard, MIGRATIONS));
+        return new ShardedUserRepository(
+                shards.stream().map(UserShard::connect).toList(),
+                new ConsistentHashRing(shards.stream().map(ShardingProperties.Shard::getName).toList(), 64),
+                idGenerator);
+    }
+
+    private static ShardingProperties.Shard h2Shard(String name) {
+        return new ShardingProperties.Shard(name,
+                "r2dbc:h2:mem:///" + name + ";DB_CLOSE_DELAY=-1;",
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;",
+                "sa", "");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.testbbl.snapshot;
+
+import com.example.testbbl.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeThenOpen_roundTripsRecordsAndHighWaterMark() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        List<User> users = List.of(
+                new User(1L, "Leanne Graham", "Bret", "sincere@april.biz", null, "hildegard.org"),
+                new User(2L, "Zoë", "zoe", "zoe@example.com", "", null));
+
+        try (UserSnapshotFile.Writer writer = UserSnapshotFile.create(file, 1_700_000_000_000_000L)) {
+            for (User user : users) {
+                writer.append(user);
+            }
+            writer.commit();
+        }
+
+        UserSnapshotFile.Snapshot snapshot = UserSnapshotFile.open(file);
+        List<User> read = new ArrayList<>();
+        snapshot.forEach(read::add);
+        assertEquals(users, read);
+        assertEquals(2, snapshot.count());
+        assertEquals(1_700_000_000_000_000L, snapshot.highWaterMarkMicros());
+    }
+
+    @Test
+    void open_rejectsCorruptedFile() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        try (UserSnapshotFile.Writer writer = UserSnapshotFile.create(file, 0)) {
+            writer.append(new User(1L, "Name", "username", "a@example.com", null, null));
+            writer.commit();
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(20);
+            int original = raw.read();
+            raw.seek(20);
+            raw.write(original ^ 0xFF);
+        }
+
+        assertThrows(UserSnapshotFile.InvalidSnapshotException.class, () -> UserSnapshotFile.open(file));
+    }
+
+    @Test
+    void close_withoutCommit_keepsPreviousSnapshotAndRemovesTempFile() throws IOException {
+        Path file = directory.resolve("users.snapshot");
+        try (UserSnapshotFile.Writer writer = UserSnapshotFile.create(file, 0)) {
+            writer.append(new User(1L, "Name", "username", "a@example.com", null, null));
+        }
+
+        assertFalse(Files.exists(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.testbbl.snapshot;
+
+import com.example.testbbl.model.User;
+import com.example.testbbl.repository.TestUserRepositories;
+import com.example.testbbl.repository.UserRepository;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserSnapshotServiceTest {
+
+    private static final LocalDateTime DAY_ONE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private DatabaseClient database;
+    private UserRepository userRepository;
+    private SnapshotProperties properties;
+    private UserSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = TestUserRepositories.migratedH2();
+        database = DatabaseClient.create(connectionFactory);
+        userRepository = TestUserRepositories.create(connectionFactory);
+        // drop the sample user seeded by the migrations
+        database.sql("DELETE FROM users").then().block();
+        properties = new SnapshotProperties();
+        properties.setEnabled(true);
+        properties.setPath(directory.resolve("users.snapshot"));
+        properties.setCatchUpOverlap(Duration.ZERO);
+        service = new UserSnapshotService(userRepository, properties);
+
+        // rows last changed on three consecutive days, so the snapshot's high-water mark is day three
+        for (int i = 1; i <= 3; i++) {
+            userRepository.insert(user(i, "User " + i)).block();
+            backdate(i, DAY_ONE.plusDays(i - 1));
+        }
+    }
+
+    @Test
+    void warmUpUsers_replaysSnapshotThenCatchesUpRowsChangedSince() {
+        StepVerifier.create(service.writeSnapshot())
+                .expectNext(3L)
+                .verifyComplete();
+        userRepository.update(user(1, "Renamed")).block();
+        userRepository.insert(user(4, "User 4")).block();
+        // only the snapshot still knows user 2, so seeing it proves the replay
+        database.sql("DELETE FROM users WHERE id = 2").then().block();
+
+        List<User> warmed = service.warmUpUsers().collectList().block();
+
+        assertEquals(List.of(user(1, "User 1"), user(2, "User 2"), user(3, "User 3")), warmed.subList(0, 3));
+        assertEquals(List.of(1L, 3L, 4L), warmed.subList(3, warmed.size()).stream().map(User::getId).sorted().toList());
+        assertEquals("Renamed", warmed.stream().filter(user -> user.getId() == 1L).reduce((first, last) -> last).orElseThrow().getName());
+    }
+
+    @Test
+    void writeSnapshot_mergesChangedRowsIntoThePreviousSnapshot() throws IOException {
+        service.writeSnapshot().block();
+        userRepository.update(user(1, "Renamed")).block();
+        userRepository.insert(user(4, "User 4")).block();
+        database.sql("DELETE FROM users WHERE id = 2").then().block();
+
+        StepVerifier.create(service.writeSnapshot())
+                .expectNext(4L)
+                .verifyComplete();
+
+        // the incremental write keeps the deleted user 2 until the next full rewrite
+        assertEquals(List.of(user(1, "Renamed"), user(2, "User 2"), user(3, "User 3"), user(4, "User 4")), readSnapshot());
+    }
+
+    @Test
+    void writeSnapshot_rewritesFromTheTableOnceAFullRewriteIsDue() throws IOException {
+        properties.setFullRewriteInterval(Duration.ZERO);
+        service.writeSnapshot().block();
+        database.sql("DELETE FROM users WHERE id = 2").then().block();
+
+        StepVerifier.create(service.writeSnapshot())
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertEquals(List.of(1L, 3L), readSnapshot().stream().map(User::getId).sorted().toList());
+    }
+
+    @Test
+    void warmUpUsers_withCorruptSnapshot_fallsBackToFindAll() throws IOException {
+        service.writeSnapshot().block();
+        try (RandomAccessFile raw = new RandomAccessFile(properties.getPath().toFile(), "rw")) {
+            raw.seek(20);
+            int original = raw.read();
+            raw.seek(20);
+            raw.write(original ^ 0xFF);
+        }
+        database.sql("DELETE FROM users WHERE id = 2").then().block();
+
+        StepVerifier.create(service.warmUpUsers().map(User::getId).sort())
+                .expectNext(1L, 3L)
+                .verifyComplete();
+    }
+
+    private List<User> readSnapshot() throws IOException {
+        List<User> users = new ArrayList<>();
+        UserSnapshotFile.open(properties.getPath()).forEach(users::add);
+        return users;
+    }
+
+    private void backdate(long id, LocalDateTime updatedAt) {
+        database.sql("UPDATE users SET updated_at = :updatedAt WHERE id = :id")
+                .bind("updatedAt", updatedAt)
+                .bind("id", id)
+                .then()
+                .block();
+    }
+
+    private static User user(long id, String name) {
+        return new User(id, name, "user" + id, "user" + id + "@example.com", null, null);
+    }
+}